@@ -0,0 +1,128 @@
+#!/bin/bash
+
+# Startup benchmark: plain jar vs extracted jar vs Spring AOT vs AOT + CDS (vs native image)
+# Starts the app RUNS times per mode and reports the median
+#   - time to ready: from launch until /actuator/health answers UP (wall clock, includes JVM start)
+#   - the "Started ... in N seconds" time logged by Spring Boot
+#   - RSS once ready
+# Shared by all Spring Boot modules; run it from the module directory with the module's
+# artifact id. Start the infrastructure the app needs first (see the module README).
+#
+# Build first:  mvn -Pfast-startup clean package -DskipTests
+# Optional:     mvn -Pnative native:compile -DskipTests   (adds the native mode; no clean, it would
+#               delete the fast-startup build)
+#
+# Usage: <path-to>/benchmark-startup.sh <artifact-id> [port] [runs]
+#   e.g. cd cloud-native-chat-demo && ../benchmark-startup.sh cloud-native-chat-demo 8091
+
+NAME=$1
+PORT=${2:-8091}
+RUNS=${3:-5}
+if [ -z "$NAME" ]; then
+    echo "Usage: $0 <artifact-id> [port] [runs]"
+    exit 1
+fi
+JAR=$(ls target/$NAME-*.jar 2>/dev/null | grep -v original | head -n 1)
+FAST_DIR=target/fast-startup
+NATIVE=target/$NAME
+RESULTS=benchmark-startup-results.txt
+
+echo "======================================"
+echo "Benchmarking Startup Modes"
+echo "======================================"
+echo ""
+
+if [ -z "$JAR" ] || [ ! -f "$FAST_DIR/application.jsa" ]; then
+    echo "✗ Fast-startup build not found. Build it first: mvn -Pfast-startup clean package -DskipTests"
+    exit 1
+fi
+FAST_JAR="$FAST_DIR/$(basename "$JAR")"
+
+now_ms() {
+    local ns
+    ns=$(date +%s%N)
+    if [[ "$ns" == *N ]]; then
+        # BSD date has no nanoseconds
+        python3 -c 'import time; print(int(time.time() * 1000))'
+    else
+        echo $(( ns / 1000000 ))
+    fi
+}
+
+median() {
+    sort -n | awk 'NF { v[++n] = $1 } END { if (n == 0) print "-"; else print v[int((n + 1) / 2)] }'
+}
+
+echo "runs=$RUNS jar=$JAR" > "$RESULTS"
+
+run_mode() {
+    local mode=$1
+    shift
+
+    echo "--------------------------------------"
+    echo "Mode: $mode"
+    echo "--------------------------------------"
+
+    local ready_times=() started_times=() rss_values=()
+    for run in $(seq 1 "$RUNS"); do
+        local log="/tmp/$NAME-startup-$mode.log"
+        local start
+        start=$(now_ms)
+        "$@" --server.port=$PORT > "$log" 2>&1 &
+        local pid=$!
+
+        local ready=""
+        for i in $(seq 1 1200); do
+            if curl -s "http://localhost:$PORT/actuator/health" 2>/dev/null | grep -q '"UP"'; then
+                ready=$(( $(now_ms) - start ))
+                break
+            fi
+            if ! kill -0 $pid 2>/dev/null; then
+                break
+            fi
+            sleep 0.05
+        done
+
+        if [ -z "$ready" ]; then
+            echo "  run $run: ✗ not ready (see $log)"
+            kill $pid 2>/dev/null
+            wait $pid 2>/dev/null
+            continue
+        fi
+
+        local rss started
+        rss=$(ps -o rss= -p $pid | tr -d ' ')
+        started=$(grep -o 'Started [A-Za-z]* in [0-9.]* seconds' "$log" | awk '{print $4}')
+        echo "  run $run: ready ${ready} ms, started in ${started:-?} s, RSS ${rss} KB"
+        ready_times+=("$ready")
+        started_times+=("${started:-0}")
+        rss_values+=("$rss")
+
+        kill $pid
+        wait $pid 2>/dev/null
+    done
+
+    {
+        echo ""
+        echo "[$mode]"
+        echo "time to ready, median (ms):  $(printf '%s\n' "${ready_times[@]}" | median)"
+        echo "Spring 'Started in' (s):     $(printf '%s\n' "${started_times[@]}" | median)"
+        echo "RSS when ready (KB):         $(printf '%s\n' "${rss_values[@]}" | median)"
+    } | tee -a "$RESULTS"
+}
+
+run_mode jar        java -jar "$JAR"
+run_mode extracted  java -jar "$FAST_JAR"
+run_mode aot        java -Dspring.aot.enabled=true -jar "$FAST_JAR"
+run_mode aot-cds    java -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true -jar "$FAST_JAR"
+if [ -x "$NATIVE" ]; then
+    run_mode native "$NATIVE"
+else
+    echo ""
+    echo "Native image not found ($NATIVE), skipping native mode"
+fi
+
+echo ""
+echo "======================================"
+echo "Results written to $RESULTS"
+echo "======================================"
@@ -0,0 +1,96 @@
+#!/bin/bash
+
+# Thread model benchmark: platform threads vs virtual threads
+# Runs the app once per mode against the local MySQL/RabbitMQ from docker-compose.yaml and reports
+#   - throughput of /api/chat/send and /api/messages/poll (ApacheBench)
+#   - RSS and live thread count with N parked long-poll connections (memory per connection)
+#
+# Usage: ./benchmark-threads.sh [requests] [concurrency] [parked-connections]
+
+REQUESTS=${1:-20000}
+CONCURRENCY=${2:-200}
+PARKED=${3:-2000}
+PORT=8090
+JAR=$(ls target/cloud-native-chat-demo-*.jar 2>/dev/null | head -n 1)
+RESULTS=benchmark-threads-results.txt
+
+echo "======================================"
+echo "Benchmarking Platform vs Virtual Threads"
+echo "======================================"
+echo ""
+
+if [ -z "$JAR" ]; then
+    echo "✗ Application JAR not found. Build it first: mvn clean package -DskipTests"
+    exit 1
+fi
+if ! command -v ab &> /dev/null; then
+    echo "✗ ApacheBench (ab) is required: apt-get install apache2-utils / brew install httpd"
+    exit 1
+fi
+
+echo "requests=$REQUESTS concurrency=$CONCURRENCY parked=$PARKED" > "$RESULTS"
+
+run_mode() {
+    local mode=$1
+    local virtual=$2
+
+    echo "--------------------------------------"
+    echo "Mode: $mode"
+    echo "--------------------------------------"
+
+    java -Xmx512m -jar "$JAR" \
+        --server.port=$PORT \
+        --spring.threads.virtual.enabled=$virtual \
+        --logging.level.org.springframework.web=INFO \
+        > "/tmp/chat-benchmark-$mode.log" 2>&1 &
+    local pid=$!
+
+    for i in $(seq 1 60); do
+        curl -s "http://localhost:$PORT/actuator/health" | grep -q '"UP"' && break
+        sleep 2
+    done
+
+    local rss_idle threads_idle
+    rss_idle=$(ps -o rss= -p $pid)
+    threads_idle=$(ps -o nlwp= -p $pid)
+
+    echo '{"username":"bench","content":"benchmark message","type":"CHAT"}' > /tmp/chat-benchmark-body.json
+    local send_rps poll_rps
+    send_rps=$(ab -q -n "$REQUESTS" -c "$CONCURRENCY" -p /tmp/chat-benchmark-body.json \
+        -T application/json "http://localhost:$PORT/api/chat/send" | awk '/Requests per second/ {print $4}')
+    poll_rps=$(ab -q -n "$REQUESTS" -c "$CONCURRENCY" \
+        "http://localhost:$PORT/api/messages/poll?after=0&limit=50" | awk '/Requests per second/ {print $4}')
+
+    # Park long-poll requests far in the future so they wait for the full timeout
+    for i in $(seq 1 "$PARKED"); do
+        curl -s -o /dev/null "http://localhost:$PORT/api/messages/wait?after=9223372036854775806" &
+    done
+    sleep 5
+    local rss_parked threads_parked
+    rss_parked=$(ps -o rss= -p $pid)
+    threads_parked=$(ps -o nlwp= -p $pid)
+    local per_conn=$(( (rss_parked - rss_idle) / PARKED ))
+
+    kill $pid
+    wait $pid 2>/dev/null
+    pkill -f "api/messages/wait" 2>/dev/null
+
+    {
+        echo ""
+        echo "[$mode]"
+        echo "send requests/s:            $send_rps"
+        echo "poll requests/s:            $poll_rps"
+        echo "RSS idle (KB):              $rss_idle"
+        echo "RSS with $PARKED parked (KB): $rss_parked"
+        echo "RSS per parked request (KB): $per_conn"
+        echo "threads idle / parked:      $threads_idle / $threads_parked"
+    } | tee -a "$RESULTS"
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo ""
+echo "======================================"
+echo "Results written to $RESULTS"
+echo "======================================"
@@ -2,11 +2,16 @@ package com.example.chat;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service responsible for database initialization tasks
@@ -18,6 +23,15 @@ public class DatabaseInitializerService {
 
     private final JdbcTemplate jdbcTemplate;
 
+    @Value("${chat.retention.partitioning.enabled:false}")
+    private boolean partitioningEnabled;
+
+    @Value("${chat.history.retention.hours:24}")
+    private int retentionHours;
+
+    @Value("${chat.retention.partition.lookahead-hours:6}")
+    private int lookaheadHours;
+
     @Transactional
     public void initialize() {
         log.info("Starting database initialization...");
@@ -66,6 +80,11 @@ public class DatabaseInitializerService {
 
             if (count != null && count > 0) {
                 log.info("✓ Table 'chat_messages' already exists");
+                addRoomColumn();
+                if (partitioningEnabled && !isPartitioned()) {
+                    log.warn("Table 'chat_messages' is not partitioned; retention will use chunked deletes. "
+                        + "Recreate the table to switch to partition-based retention.");
+                }
                 return;
             }
         } catch (Exception e) {
@@ -74,6 +93,11 @@ public class DatabaseInitializerService {
 
         // Create chat_messages table
         try {
+            if (partitioningEnabled) {
+                createPartitionedTable();
+                return;
+            }
+
             String createTableSQL = """
                 CREATE TABLE IF NOT EXISTS chat_messages (
                     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -81,8 +105,10 @@ public class DatabaseInitializerService {
                     content TEXT NOT NULL,
                     timestamp DATETIME(6) NOT NULL,
                     type VARCHAR(20) NOT NULL,
+                    room VARCHAR(64) NOT NULL DEFAULT 'general',
                     INDEX idx_timestamp (timestamp),
-                    INDEX idx_type (type)
+                    INDEX idx_type (type),
+                    INDEX idx_room_id (room, id)
                 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
                 """;
 
@@ -94,6 +120,85 @@ public class DatabaseInitializerService {
         }
     }
 
+    /**
+     * Add the room column to tables created before chat rooms existed.
+     * Existing messages end up in the default room. The (room, id) index
+     * serves the per-room history and polling queries.
+     */
+    private void addRoomColumn() {
+        String sql = """
+            SELECT COUNT(*)
+            FROM information_schema.columns
+            WHERE table_schema = DATABASE()
+            AND table_name = 'chat_messages'
+            AND column_name = 'room'
+            """;
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
+        if (count != null && count > 0) {
+            return;
+        }
+        log.info("Adding column 'room' to 'chat_messages'...");
+        jdbcTemplate.execute("""
+            ALTER TABLE chat_messages
+                ADD COLUMN room VARCHAR(64) NOT NULL DEFAULT 'general' AFTER type,
+                ADD INDEX idx_room_id (room, id)
+            """);
+        log.info("✓ Column 'room' added; existing messages are in room 'general'");
+    }
+
+    /**
+     * Create chat_messages range-partitioned by hour.
+     * The main application drops expired partitions and adds upcoming ones,
+     * which keeps retention cost independent of the message volume.
+     * MySQL requires the partitioning column in every unique key, hence the
+     * composite primary key (id stays first so id range scans still use it).
+     */
+    private void createPartitionedTable() {
+        DateTimeFormatter partitionName = DateTimeFormatter.ofPattern("'p'yyyyMMddHH");
+        DateTimeFormatter partitionBound = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        List<String> partitions = new ArrayList<>();
+        for (LocalDateTime hour = now.minusHours(retentionHours);
+             !hour.isAfter(now.plusHours(lookaheadHours));
+             hour = hour.plusHours(1)) {
+            partitions.add("PARTITION " + hour.format(partitionName)
+                + " VALUES LESS THAN ('" + hour.plusHours(1).format(partitionBound) + "')");
+        }
+        partitions.add("PARTITION pmax VALUES LESS THAN (MAXVALUE)");
+
+        String createTableSQL = """
+            CREATE TABLE IF NOT EXISTS chat_messages (
+                id BIGINT AUTO_INCREMENT,
+                username VARCHAR(100) NOT NULL,
+                content TEXT NOT NULL,
+                timestamp DATETIME(6) NOT NULL,
+                type VARCHAR(20) NOT NULL,
+                room VARCHAR(64) NOT NULL DEFAULT 'general',
+                PRIMARY KEY (id, timestamp),
+                INDEX idx_timestamp (timestamp),
+                INDEX idx_type (type),
+                INDEX idx_room_id (room, id)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+            PARTITION BY RANGE COLUMNS(timestamp) (
+            """ + String.join(",\n", partitions) + ")";
+
+        jdbcTemplate.execute(createTableSQL);
+        log.info("✓ Table 'chat_messages' created with {} hourly partitions", partitions.size() - 1);
+    }
+
+    private boolean isPartitioned() {
+        String sql = """
+            SELECT COUNT(*)
+            FROM information_schema.partitions
+            WHERE table_schema = DATABASE()
+            AND table_name = 'chat_messages'
+            AND partition_name IS NOT NULL
+            """;
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
+        return count != null && count > 0;
+    }
+
     private void seedInitialData() {
         log.info("Step 3/4: Seeding initial data...");
 
@@ -1,5 +1,6 @@
 package com.example.chat;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -15,6 +16,7 @@ import org.springframework.context.annotation.Bean;
  * - Runs as a Cloud Foundry task (no profile parameters needed)
  * - Initializes database schema
  * - Seeds initial data if needed
+ * - Optionally bulk-loads synthetic history (chat.generator.enabled=true)
  * - Exits with code 0 on success, non-zero on failure
  */
 @SpringBootApplication
@@ -33,10 +35,15 @@ public class DbInitializerApplication {
     }
 
     @Bean
-    public CommandLineRunner initializeDatabase(DatabaseInitializerService initializerService) {
+    public CommandLineRunner initializeDatabase(DatabaseInitializerService initializerService,
+                                                SyntheticDataGenerator dataGenerator,
+                                                @Value("${chat.generator.enabled:false}") boolean generate) {
         return args -> {
             try {
                 initializerService.initialize();
+                if (generate) {
+                    dataGenerator.generate();
+                }
                 System.out.println("========================================");
                 System.out.println("Database initialization completed successfully");
                 System.out.println("========================================");
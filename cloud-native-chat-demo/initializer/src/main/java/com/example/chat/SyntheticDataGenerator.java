@@ -0,0 +1,240 @@
+package com.example.chat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk-loads synthetic chat history for testing history queries, cleanup and
+ * the actuator counts on a realistically sized table.
+ *
+ * Rows are written with multi-row INSERT statements, one transaction per batch.
+ * The same transaction advances the run's row in chat_generator_runs, so an
+ * interrupted run resumes after the last committed batch (run it again with the
+ * same chat.generator.run-id). Timestamps are spread evenly over the configured
+ * window, which is fixed when the run starts, so ids and timestamps grow together
+ * as they do in production. Content lengths follow an exponential distribution
+ * around the configured mean.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator {
+
+    // Placeholders per row; MySQL allows at most 65535 per statement
+    private static final int COLUMNS = 5;
+    private static final int MAX_BATCH_ROWS = 65_535 / COLUMNS;
+    private static final String WORDS = "the quick brown fox jumps over the lazy dog while the chat keeps scrolling "
+        + "deployment finished green is healthy switching traffic now rabbitmq queue looks fine "
+        + "anyone seen the latest build logs cloud foundry task completed database migrated ";
+    // One long block of text; message contents are slices of it
+    private static final String TEXT = WORDS.repeat(64 * 1024 / WORDS.length() + 1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${chat.generator.run-id:default}")
+    private String runId;
+
+    @Value("${chat.generator.messages:1000000}")
+    private long messages;
+
+    @Value("${chat.generator.users:1000}")
+    private int users;
+
+    @Value("${chat.generator.rooms:1}")
+    private int rooms;
+
+    @Value("${chat.generator.spread-hours:24}")
+    private int spreadHours;
+
+    @Value("${chat.generator.content-length.mean:80}")
+    private int meanContentLength;
+
+    @Value("${chat.generator.content-length.max:1000}")
+    private int maxContentLength;
+
+    @Value("${chat.generator.presence-fraction:0.02}")
+    private double presenceFraction;
+
+    @Value("${chat.generator.batch-rows:1000}")
+    private int batchRows;
+
+    @Value("${chat.generator.seed:42}")
+    private long seed;
+
+    @Value("${chat.generator.report-interval-seconds:10}")
+    private int reportIntervalSeconds;
+
+    public void generate() {
+        if (batchRows < 1 || batchRows > MAX_BATCH_ROWS) {
+            throw new IllegalArgumentException("chat.generator.batch-rows must be between 1 and " + MAX_BATCH_ROWS);
+        }
+        if (maxContentLength > TEXT.length()) {
+            throw new IllegalArgumentException("chat.generator.content-length.max must not exceed " + TEXT.length());
+        }
+        createRunsTable();
+        Run run = startOrResume();
+        if (run.rowsDone() >= run.totalRows()) {
+            log.info("✓ Generator run '{}' already complete ({} rows)", runId, run.totalRows());
+            return;
+        }
+        if (run.rowsDone() > 0) {
+            log.info("Resuming generator run '{}' at row {} of {}", runId, run.rowsDone(), run.totalRows());
+        } else {
+            log.info("Generating {} messages ({} users, {} room(s), {} hours, mean content {} chars, {} rows/batch)",
+                run.totalRows(), users, rooms, spreadHours, meanContentLength, batchRows);
+        }
+
+        String fullBatchSql = insertSql(batchRows);
+        long startNanos = System.nanoTime();
+        long lastReportNanos = startNanos;
+        long lastReportRows = run.rowsDone();
+        long done = run.rowsDone();
+
+        while (done < run.totalRows()) {
+            int rows = (int) Math.min(batchRows, run.totalRows() - done);
+            String sql = rows == batchRows ? fullBatchSql : insertSql(rows);
+            Object[] args = batchArgs(run, done, rows);
+            long next = done + rows;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(sql, args);
+                jdbcTemplate.update("UPDATE chat_generator_runs SET rows_done = ?, updated_at = NOW(6) WHERE run_id = ?",
+                    next, runId);
+            });
+            done = next;
+
+            long now = System.nanoTime();
+            if (now - lastReportNanos >= TimeUnit.SECONDS.toNanos(reportIntervalSeconds)) {
+                report(done, run.totalRows(), (done - lastReportRows) / seconds(now - lastReportNanos),
+                    (done - run.rowsDone()) / seconds(now - startNanos));
+                lastReportNanos = now;
+                lastReportRows = done;
+            }
+        }
+
+        double elapsed = seconds(System.nanoTime() - startNanos);
+        log.info("✓ Generated {} rows in {} ({} rows/s); run '{}' complete with {} rows",
+            done - run.rowsDone(), Duration.ofMillis((long) (elapsed * 1000)), Math.round((done - run.rowsDone()) / elapsed),
+            runId, run.totalRows());
+    }
+
+    private void createRunsTable() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS chat_generator_runs (
+                run_id VARCHAR(64) PRIMARY KEY,
+                total_rows BIGINT NOT NULL,
+                rows_done BIGINT NOT NULL,
+                window_start DATETIME(6) NOT NULL,
+                window_end DATETIME(6) NOT NULL,
+                updated_at DATETIME(6) NOT NULL
+            ) ENGINE=InnoDB
+            """);
+    }
+
+    /**
+     * The stored run wins over the current settings so a resumed run keeps its size and time window
+     */
+    private Run startOrResume() {
+        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
+            "SELECT total_rows, rows_done, window_start, window_end FROM chat_generator_runs WHERE run_id = ?", runId);
+        if (!existing.isEmpty()) {
+            Map<String, Object> row = existing.getFirst();
+            long total = ((Number) row.get("total_rows")).longValue();
+            if (total != messages) {
+                log.warn("Generator run '{}' was started with {} messages; keeping that (use a new run-id for a different size)",
+                    runId, total);
+            }
+            return new Run(total, ((Number) row.get("rows_done")).longValue(),
+                toLocalDateTime(row.get("window_start")), toLocalDateTime(row.get("window_end")));
+        }
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime start = end.minusHours(spreadHours);
+        jdbcTemplate.update("""
+            INSERT INTO chat_generator_runs (run_id, total_rows, rows_done, window_start, window_end, updated_at)
+            VALUES (?, ?, 0, ?, ?, NOW(6))
+            """, runId, messages, start, end);
+        return new Run(messages, 0, start, end);
+    }
+
+    private Object[] batchArgs(Run run, long firstRow, int rows) {
+        // Seeded per batch: a resumed run writes the same rows it would have written
+        SplittableRandom random = new SplittableRandom(seed ^ (firstRow * 0x9E3779B97F4A7C15L));
+        long windowMicros = ChronoUnit.MICROS.between(run.windowStart(), run.windowEnd());
+        double stepMicros = (double) windowMicros / run.totalRows();
+        Object[] args = new Object[rows * COLUMNS];
+        int i = 0;
+        for (long row = firstRow; row < firstRow + rows; row++) {
+            String username = "user-" + random.nextInt(users);
+            long offsetMicros = (long) (row * stepMicros + random.nextDouble() * stepMicros);
+            LocalDateTime timestamp = run.windowStart().plus(offsetMicros, ChronoUnit.MICROS);
+            String type = "CHAT";
+            String content;
+            double presence = random.nextDouble();
+            if (presence < presenceFraction / 2) {
+                type = "JOIN";
+                content = username + " joined the chat";
+            } else if (presence < presenceFraction) {
+                type = "LEAVE";
+                content = username + " left the chat";
+            } else {
+                content = content(random);
+            }
+            args[i++] = username;
+            args[i++] = content;
+            args[i++] = timestamp;
+            args[i++] = type;
+            args[i++] = rooms <= 1 ? "general" : "room-" + random.nextInt(rooms);
+        }
+        return args;
+    }
+
+    /**
+     * Exponentially distributed length (most messages short, a few long), cut from the text block
+     */
+    private String content(SplittableRandom random) {
+        int length = (int) Math.ceil(-meanContentLength * Math.log(1 - random.nextDouble()));
+        length = Math.clamp(length, 1, maxContentLength);
+        int offset = random.nextInt(TEXT.length() - length + 1);
+        return TEXT.substring(offset, offset + length);
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * 17)
+            .append("INSERT INTO chat_messages (username, content, timestamp, type, room) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private static void report(long done, long total, double intervalRate, double overallRate) {
+        long remaining = total - done;
+        log.info("{} / {} rows ({}%), {} rows/s (average {} rows/s), ETA {}",
+            done, total, Math.round(done * 100.0 / total), Math.round(intervalRate), Math.round(overallRate),
+            overallRate > 0 ? Duration.ofSeconds((long) (remaining / overallRate)) : "-");
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos, 1) / 1e9;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private record Run(long totalRows, long rowsDone, LocalDateTime windowStart, LocalDateTime windowEnd) {
+    }
+}
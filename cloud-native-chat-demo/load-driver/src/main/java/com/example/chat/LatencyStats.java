@@ -0,0 +1,145 @@
+package com.example.chat;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters shared by all simulated users.
+ *
+ * Delivery latency is recorded twice: from the time a message was scheduled to be
+ * sent (corrected for coordinated omission - a stalled sender still accounts for the
+ * messages it should have sent) and from the time it was actually sent (raw).
+ * Values are microseconds.
+ */
+@Component
+public class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder raw = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder poll = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalCorrected = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalRaw = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalPoll = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private long lastSent;
+    private long lastReceived;
+    private long lastPolls;
+
+    public void messageSent() {
+        sent.increment();
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    /**
+     * Record the delivery of one of our own messages to a subscriber
+     */
+    public void delivered(long scheduledNanos, long sentNanos) {
+        long now = System.nanoTime();
+        received.increment();
+        corrected.recordValue(toMicros(now - scheduledNanos));
+        raw.recordValue(toMicros(now - sentNanos));
+    }
+
+    public void polled(long requestNanos) {
+        polls.increment();
+        poll.recordValue(toMicros(requestNanos));
+    }
+
+    /**
+     * A poll answered with 304 Not Modified
+     */
+    public void polledNotModified(long requestNanos) {
+        notModified.increment();
+        polled(requestNanos);
+    }
+
+    /**
+     * One line with the rates and percentiles since the previous report
+     */
+    public synchronized String intervalReport(long elapsedSeconds, double intervalSeconds, int sessions) {
+        Histogram intervalCorrected = corrected.getIntervalHistogram();
+        Histogram intervalRaw = raw.getIntervalHistogram();
+        Histogram intervalPoll = poll.getIntervalHistogram();
+        totalCorrected.add(intervalCorrected);
+        totalRaw.add(intervalRaw);
+        totalPoll.add(intervalPoll);
+
+        long sentNow = sent.sum();
+        long receivedNow = received.sum();
+        long pollsNow = polls.sum();
+        String line = String.format(
+            "t=%4ds sessions=%5d sent/s=%8.1f recv/s=%9.1f | latency ms p50=%7.2f p99=%7.2f p999=%8.2f max=%8.2f"
+                + " (raw p99=%7.2f) | polls/s=%6.1f poll p99=%7.2f | errors=%d",
+            elapsedSeconds, sessions,
+            (sentNow - lastSent) / intervalSeconds,
+            (receivedNow - lastReceived) / intervalSeconds,
+            millis(intervalCorrected, 50), millis(intervalCorrected, 99), millis(intervalCorrected, 99.9),
+            intervalCorrected.getMaxValue() / 1000.0,
+            millis(intervalRaw, 99),
+            (pollsNow - lastPolls) / intervalSeconds,
+            millis(intervalPoll, 99),
+            errors.sum());
+        lastSent = sentNow;
+        lastReceived = receivedNow;
+        lastPolls = pollsNow;
+        return line;
+    }
+
+    /**
+     * Totals for the whole run, followed by the full corrected percentile distribution
+     */
+    public synchronized void printSummary(PrintStream out, double durationSeconds) {
+        intervalReport(0, 1, 0);
+        out.println("========================================");
+        out.printf("Duration:        %.1f s%n", durationSeconds);
+        out.printf("Messages sent:   %d (%.1f/s)%n", sent.sum(), sent.sum() / durationSeconds);
+        out.printf("Deliveries:      %d (%.1f/s)%n", received.sum(), received.sum() / durationSeconds);
+        out.printf("Polls:           %d (%.1f/s, %d not modified)%n", polls.sum(), polls.sum() / durationSeconds,
+            notModified.sum());
+        out.printf("Errors:          %d%n", errors.sum());
+        out.println("Send-to-receive latency (ms)      p50      p99     p999      max");
+        printPercentiles(out, "  corrected (scheduled time)", totalCorrected);
+        printPercentiles(out, "  raw (actual send time)    ", totalRaw);
+        printPercentiles(out, "Poll request latency (ms)   ", totalPoll);
+        out.println("========================================");
+    }
+
+    /**
+     * Full HdrHistogram percentile distribution of the corrected latency, in milliseconds
+     */
+    public synchronized void writeDistribution(PrintStream out) {
+        totalCorrected.outputPercentileDistribution(out, 1000.0);
+    }
+
+    private static void printPercentiles(PrintStream out, String label, Histogram histogram) {
+        out.printf("%s %8.2f %8.2f %8.2f %8.2f%n", label,
+            millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+            histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, nanos / 1000));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.chat;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Load Driver - simulates chat users against one or more chat instances
+ *
+ * Opens SockJS/STOMP sessions to /ws-chat that join, send at a fixed rate and
+ * leave, optionally mixed with clients polling /api/messages/poll. Reports
+ * send-to-receive latency percentiles and throughput, then exits.
+ */
+@SpringBootApplication
+public class LoadDriverApplication {
+
+    public static void main(String[] args) {
+        SpringApplication app = new SpringApplication(LoadDriverApplication.class);
+        // Client only - no embedded server
+        app.setWebApplicationType(WebApplicationType.NONE);
+
+        System.exit(SpringApplication.exit(app.run(args)));
+    }
+
+    @Bean
+    public CommandLineRunner runLoad(LoadDriverService loadDriverService) {
+        return args -> loadDriverService.run();
+    }
+}
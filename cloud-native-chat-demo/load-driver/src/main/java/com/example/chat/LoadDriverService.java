@@ -0,0 +1,253 @@
+package com.example.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs one load scenario and prints the report.
+ *
+ * Users are started evenly over the ramp-up period and spread round-robin over the
+ * targets and rooms. Each user joins, sends at a fixed rate from a random phase and leaves at
+ * the end (or after its session lifetime, then joins again with a new session).
+ * Sends are scheduled at fixed times; latency is measured from the scheduled time,
+ * so a backlog in the driver or the server shows up instead of being hidden.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoadDriverService {
+
+    private final LatencyStats stats;
+    private final ObjectMapper objectMapper;
+
+    @Value("${load.targets:http://localhost:8080}")
+    private List<String> targets;
+
+    @Value("${load.users:500}")
+    private int users;
+
+    @Value("${load.rooms:1}")
+    private int rooms;
+
+    @Value("${load.subscriber-fraction:1.0}")
+    private double subscriberFraction;
+
+    @Value("${load.ramp-up-seconds:30}")
+    private int rampUpSeconds;
+
+    @Value("${load.duration-seconds:120}")
+    private int durationSeconds;
+
+    @Value("${load.messages-per-user-per-minute:6}")
+    private double messagesPerUserPerMinute;
+
+    @Value("${load.message-size:100}")
+    private int messageSize;
+
+    @Value("${load.session-lifetime-seconds:0}")
+    private int sessionLifetimeSeconds;
+
+    @Value("${load.pollers:0}")
+    private int pollers;
+
+    @Value("${load.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${load.report-interval-seconds:10}")
+    private int reportIntervalSeconds;
+
+    @Value("${load.scheduler-threads:8}")
+    private int schedulerThreads;
+
+    @Value("${load.distribution-file:}")
+    private String distributionFile;
+
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private ScheduledExecutorService scheduler;
+    private WebSocketStompClient stompClient;
+    private AtomicReferenceArray<StompChatUser> activeUsers;
+    private volatile boolean stopping;
+
+    public void run() throws InterruptedException {
+        log.info("Run {}: {} users ({}% subscribed) in {} room(s) on {}, {} msg/user/min, ramp-up {}s, duration {}s, {} pollers",
+            runId, users, Math.round(subscriberFraction * 100), rooms, targets, messagesPerUserPerMinute,
+            rampUpSeconds, durationSeconds, pollers);
+
+        scheduler = Executors.newScheduledThreadPool(schedulerThreads);
+        stompClient = createStompClient();
+        activeUsers = new AtomicReferenceArray<>(users);
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < users; i++) {
+            int index = i;
+            long delayMs = users > 1 ? (long) rampUpSeconds * 1000 * i / users : 0;
+            scheduler.schedule(() -> startUser(index), delayMs, TimeUnit.MILLISECONDS);
+        }
+        startPollers();
+
+        AtomicLong lastReport = new AtomicLong(startNanos);
+        scheduler.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            double interval = (now - lastReport.getAndSet(now)) / 1e9;
+            System.out.println(stats.intervalReport(
+                TimeUnit.NANOSECONDS.toSeconds(now - startNanos), interval, connectedUsers()));
+        }, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+
+        TimeUnit.SECONDS.sleep(rampUpSeconds + durationSeconds);
+        stop();
+
+        stats.printSummary(System.out, (System.nanoTime() - startNanos) / 1e9);
+        writeDistribution();
+    }
+
+    private WebSocketStompClient createStompClient() {
+        SockJsClient sockJsClient = new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())));
+        WebSocketStompClient client = new WebSocketStompClient(sockJsClient);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        client.setMessageConverter(converter);
+
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(2);
+        heartbeatScheduler.setThreadNamePrefix("load-stomp-heartbeat-");
+        heartbeatScheduler.initialize();
+        client.setTaskScheduler(heartbeatScheduler);
+        return client;
+    }
+
+    private void startUser(int index) {
+        if (stopping) {
+            return;
+        }
+        String target = targets.get(index % targets.size());
+        boolean subscribe = (index % 100) < Math.round(subscriberFraction * 100);
+        StompChatUser user = new StompChatUser(stompClient, target + "/ws-chat", "load-user-" + index,
+            room(index), subscribe, runId, padding(messageSize), stats);
+        activeUsers.set(index, user);
+
+        user.join().whenComplete((session, failure) -> {
+            if (failure != null) {
+                stats.error();
+                log.debug("User {} could not connect to {}: {}", index, target, failure.getMessage());
+                return;
+            }
+            if (stopping) {
+                return;
+            }
+            ScheduledFuture<?> sends = scheduleSends(user);
+            if (sessionLifetimeSeconds > 0) {
+                scheduler.schedule(() -> {
+                    // Churn: leave and come back as a new session
+                    if (sends != null) {
+                        sends.cancel(false);
+                    }
+                    user.leave();
+                    startUser(index);
+                }, sessionLifetimeSeconds, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    private ScheduledFuture<?> scheduleSends(StompChatUser user) {
+        if (messagesPerUserPerMinute <= 0 || stopping) {
+            return null;
+        }
+        long intervalNanos = (long) (60_000_000_000L / messagesPerUserPerMinute);
+        long phaseNanos = ThreadLocalRandom.current().nextLong(intervalNanos);
+        long firstSendNanos = System.nanoTime() + phaseNanos;
+        AtomicLong sendCount = new AtomicLong();
+        // A fixed-rate task that runs late catches up, and each send keeps its originally scheduled time
+        return scheduler.scheduleAtFixedRate(
+            () -> user.send(firstSendNanos + sendCount.getAndIncrement() * intervalNanos),
+            phaseNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void startPollers() {
+        if (pollers <= 0) {
+            return;
+        }
+        HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(schedulerThreads)).build();
+        for (int i = 0; i < pollers; i++) {
+            PollingChatUser poller = new PollingChatUser(httpClient, objectMapper, targets.get(i % targets.size()),
+                room(i), stats);
+            scheduler.scheduleAtFixedRate(poller::poll,
+                ThreadLocalRandom.current().nextLong(pollIntervalMs), pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private int connectedUsers() {
+        int connected = 0;
+        for (int i = 0; i < activeUsers.length(); i++) {
+            StompChatUser user = activeUsers.get(i);
+            if (user != null && user.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    private void stop() throws InterruptedException {
+        stopping = true;
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        // Let messages that are still in flight arrive before the users leave and the totals are taken
+        TimeUnit.SECONDS.sleep(2);
+        log.info("Stopping {} users...", connectedUsers());
+        for (int i = 0; i < activeUsers.length(); i++) {
+            StompChatUser user = activeUsers.get(i);
+            if (user != null) {
+                user.leave();
+            }
+        }
+    }
+
+    /**
+     * Room of a user or poller: the default room, or load-0..load-(n-1) round-robin
+     */
+    private String room(int index) {
+        return rooms <= 1 ? "general" : "load-" + (index % rooms);
+    }
+
+    /**
+     * Filler text so messages have roughly the configured size
+     */
+    private static String padding(int size) {
+        return "x".repeat(Math.max(0, size - 40));
+    }
+
+    private void writeDistribution() {
+        if (distributionFile.isBlank()) {
+            return;
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(distributionFile))) {
+            stats.writeDistribution(out);
+            log.info("Latency distribution written to {}", distributionFile);
+        } catch (IOException e) {
+            log.warn("Could not write latency distribution to {}: {}", distributionFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A simulated client on the polling fallback (/api/messages/poll) in one room.
+ * Starts at the oldest retained message and follows the id cursor from there,
+ * revalidating with the ETag of the previous response like chat.js does.
+ * A poll is skipped while the previous one is still in flight.
+ */
+@Slf4j
+class PollingChatUser {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final String room;
+    private final LatencyStats stats;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+
+    private volatile long lastId;
+    private volatile String etag;
+
+    PollingChatUser(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, String room, LatencyStats stats) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.room = room;
+        this.stats = stats;
+    }
+
+    void poll() {
+        if (!inFlight.compareAndSet(false, true)) {
+            return;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/api/messages/poll?room=" + room + "&after=" + lastId))
+            .timeout(Duration.ofSeconds(30))
+            .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        HttpRequest request = builder.build();
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .whenComplete((response, failure) -> {
+                try {
+                    if (failure == null && response.statusCode() == 304) {
+                        stats.polledNotModified(System.nanoTime() - start);
+                        return;
+                    }
+                    if (failure != null || response.statusCode() != 200) {
+                        stats.error();
+                        return;
+                    }
+                    stats.polled(System.nanoTime() - start);
+                    etag = response.headers().firstValue("ETag").orElse(null);
+                    for (JsonNode message : objectMapper.readTree(response.body())) {
+                        lastId = Math.max(lastId, message.path("id").asLong(0));
+                    }
+                } catch (Exception e) {
+                    stats.error();
+                    log.debug("Poll failed: {}", e.getMessage());
+                } finally {
+                    inFlight.set(false);
+                }
+            });
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One simulated chat user on a SockJS/STOMP session, in one room.
+ *
+ * Sent messages carry a marker with the run id, the scheduled send time and the
+ * actual send time (System.nanoTime of this JVM); subscribers that receive a
+ * message with the same run id record its delivery latency.
+ */
+@Slf4j
+class StompChatUser extends StompSessionHandlerAdapter {
+
+    private static final String MARKER = "#lt ";
+
+    private final WebSocketStompClient stompClient;
+    private final String url;
+    private final String username;
+    private final String room;
+    private final boolean subscribe;
+    private final String runId;
+    private final String padding;
+    private final LatencyStats stats;
+
+    private volatile StompSession session;
+
+    StompChatUser(WebSocketStompClient stompClient, String url, String username, String room, boolean subscribe,
+                  String runId, String padding, LatencyStats stats) {
+        this.stompClient = stompClient;
+        this.url = url;
+        this.username = username;
+        this.room = room;
+        this.subscribe = subscribe;
+        this.runId = runId;
+        this.padding = padding;
+        this.stats = stats;
+    }
+
+    CompletableFuture<StompSession> join() {
+        return stompClient.connectAsync(url, this);
+    }
+
+    boolean isConnected() {
+        StompSession current = session;
+        return current != null && current.isConnected();
+    }
+
+    /**
+     * Send one chat message that was scheduled for the given time
+     */
+    void send(long scheduledNanos) {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            // Count the missed send; the scheduled time keeps the backlog visible once it reconnects
+            stats.error();
+            return;
+        }
+        try {
+            String content = MARKER + runId + " " + scheduledNanos + " " + System.nanoTime() + " " + padding;
+            current.send("/app/chat.send", Map.of("username", username, "content", content, "type", "CHAT", "room", room));
+            stats.messageSent();
+        } catch (RuntimeException e) {
+            stats.error();
+            log.debug("Send failed for {}: {}", username, e.getMessage());
+        }
+    }
+
+    void leave() {
+        StompSession current = session;
+        session = null;
+        if (current == null || !current.isConnected()) {
+            return;
+        }
+        try {
+            current.send("/app/chat.leave", Map.of("username", username, "type", "LEAVE", "room", room));
+        } catch (RuntimeException e) {
+            log.debug("Leave failed for {}: {}", username, e.getMessage());
+        }
+        current.disconnect();
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        if (subscribe) {
+            session.subscribe("/topic/rooms/" + room, this);
+        }
+        session.send("/app/chat.join", Map.of("username", username, "type", "JOIN", "room", room));
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return JsonNode.class;
+    }
+
+    /**
+     * A frame holds one message, or an array when the server broadcasts a batch
+     */
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        JsonNode frame = (JsonNode) payload;
+        if (frame.isArray()) {
+            frame.forEach(this::onMessage);
+        } else {
+            onMessage(frame);
+        }
+    }
+
+    private void onMessage(JsonNode message) {
+        String content = message.path("content").asText("");
+        if (!content.startsWith(MARKER)) {
+            return;
+        }
+        String[] parts = content.split(" ", 5);
+        if (parts.length < 4 || !runId.equals(parts[1])) {
+            return;
+        }
+        try {
+            stats.delivered(Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            log.debug("Malformed latency marker: {}", content);
+        }
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                byte[] payload, Throwable exception) {
+        stats.error();
+        log.debug("STOMP error for {}: {}", username, exception.getMessage());
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        stats.error();
+        log.debug("Transport error for {}: {}", username, exception.getMessage());
+    }
+}
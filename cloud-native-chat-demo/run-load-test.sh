@@ -0,0 +1,69 @@
+#!/bin/bash
+
+# Local load test
+# Starts MySQL and RabbitMQ from docker-compose.yaml, initializes the schema,
+# starts one or more chat instances on the host and runs the load driver
+# against all of them. Extra arguments are passed to the load driver, e.g.
+#   INSTANCES=2 ./run-load-test.sh --load.users=2000 --load.pollers=200
+
+INSTANCES=${INSTANCES:-1}
+BASE_PORT=${BASE_PORT:-8080}
+APP_JAR=$(ls target/cloud-native-chat-demo-*.jar 2>/dev/null | head -n 1)
+INIT_JAR=$(ls initializer/target/cloud-native-chat-initializer-*.jar 2>/dev/null | head -n 1)
+DRIVER_JAR=$(ls load-driver/target/cloud-native-chat-load-driver-*.jar 2>/dev/null | head -n 1)
+
+echo "======================================"
+echo "Chat Load Test ($INSTANCES instance(s))"
+echo "======================================"
+echo ""
+
+if [ -z "$APP_JAR" ] || [ -z "$INIT_JAR" ] || [ -z "$DRIVER_JAR" ]; then
+    echo "✗ JARs not found. Build them first:"
+    echo "  mvn clean package -DskipTests"
+    echo "  (cd initializer && mvn clean package -DskipTests)"
+    echo "  (cd load-driver && mvn clean package -DskipTests)"
+    exit 1
+fi
+
+echo "Starting MySQL and RabbitMQ..."
+docker compose up -d --wait mysql rabbitmq || exit 1
+
+echo "Initializing database..."
+java -jar "$INIT_JAR" > /tmp/chat-load-initializer.log 2>&1 || {
+    echo "✗ Database initialization failed, see /tmp/chat-load-initializer.log"
+    exit 1
+}
+
+PIDS=()
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null
+    done
+}
+trap cleanup EXIT
+
+TARGETS=""
+for i in $(seq 0 $((INSTANCES - 1))); do
+    port=$((BASE_PORT + i))
+    echo "Starting instance on port $port..."
+    java -jar "$APP_JAR" --server.port=$port > "/tmp/chat-load-instance-$port.log" 2>&1 &
+    PIDS+=($!)
+    TARGETS="${TARGETS:+$TARGETS,}http://localhost:$port"
+done
+
+for i in $(seq 0 $((INSTANCES - 1))); do
+    port=$((BASE_PORT + i))
+    for attempt in $(seq 1 60); do
+        curl -s "http://localhost:$port/actuator/health" | grep -q '"UP"' && break
+        sleep 2
+    done
+    echo "✓ Instance on port $port is up"
+done
+
+echo ""
+echo "Running load driver against $TARGETS..."
+java -jar "$DRIVER_JAR" --load.targets="$TARGETS" --load.distribution-file=/tmp/chat-load-latency.hgrm "$@"
+
+echo ""
+echo "Full latency distribution: /tmp/chat-load-latency.hgrm"
+echo "Instance logs: /tmp/chat-load-instance-*.log"
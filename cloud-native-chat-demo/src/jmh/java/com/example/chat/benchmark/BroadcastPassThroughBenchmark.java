@@ -0,0 +1,127 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.messaging.ChatMessageConverter;
+import com.example.chat.messaging.ChatMessageConverter.ChatCodec;
+import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.ChatRoom;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The listener's broadcast step for one JSON delivery from RabbitMQ: the typed path
+ * (decode, then serialize again for STOMP) against the pass-through path (decode for
+ * the history cache, forward the AMQP body as the frame payload). Both include the
+ * decode, so the difference is the CPU and allocation saved per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BroadcastPassThroughBenchmark {
+
+    private static final String DESTINATION = ChatRoom.destination(ChatRoom.DEFAULT);
+
+    @Param({"1", "100"})
+    private int subscribers;
+
+    @Param({"120", "1024"})
+    private int contentLength;
+
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate messagingTemplate;
+    private ChatMessageConverter amqpConverter;
+    private org.springframework.amqp.core.Message delivery;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        broker = new SimpleBrokerMessageHandler(clientInbound,
+            (frame, timeout) -> {
+                this.blackhole.consume(frame);
+                return true;
+            },
+            brokerChannel, List.of("/topic"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            String sessionId = "session-" + i;
+            broker.handleMessage(frame(SimpMessageType.CONNECT, sessionId, null));
+            broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, sessionId, "sub-0"));
+        }
+
+        // One ObjectMapper for both hops, as in the application
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MappingJackson2MessageConverter stompConverter = new MappingJackson2MessageConverter();
+        stompConverter.setObjectMapper(objectMapper);
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(stompConverter);
+
+        amqpConverter = new ChatMessageConverter(new Jackson2JsonMessageConverter(objectMapper), ChatCodec.JSON, 1024);
+        delivery = amqpConverter.toMessage(SampleMessages.message(contentLength), new MessageProperties());
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public void typed() {
+        ChatMessageDTO message = (ChatMessageDTO) amqpConverter.fromMessage(delivery);
+        messagingTemplate.convertAndSend(DESTINATION, message);
+    }
+
+    @Benchmark
+    public void passThrough() {
+        blackhole.consume(amqpConverter.fromMessage(delivery));
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(DESTINATION,
+            MessageBuilder.createMessage(ChatMessageConverter.chatJsonBody(delivery), accessor.getMessageHeaders()));
+    }
+
+    private static Message<byte[]> frame(
+            SimpMessageType type, String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(DESTINATION);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
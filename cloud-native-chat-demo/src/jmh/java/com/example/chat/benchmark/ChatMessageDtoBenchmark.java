@@ -0,0 +1,60 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping and the Lombok-generated equals/hashCode on every message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMessageDtoBenchmark {
+
+    private ChatMessageDTO dto;
+    private ChatMessageDTO equalDto;
+    private ChatMessage entity;
+
+    @Setup
+    public void setUp() {
+        dto = SampleMessages.message(120);
+        equalDto = SampleMessages.message(120);
+        entity = dto.toEntity();
+        entity.setId(dto.getId());
+    }
+
+    @Benchmark
+    public ChatMessageDTO fromEntity() {
+        return ChatMessageDTO.fromEntity(entity);
+    }
+
+    @Benchmark
+    public ChatMessage toEntity() {
+        return dto.toEntity();
+    }
+
+    @Benchmark
+    public boolean equalsEqualMessage() {
+        return dto.equals(equalDto);
+    }
+
+    @Benchmark
+    public int hashCodeMessage() {
+        return dto.hashCode();
+    }
+}
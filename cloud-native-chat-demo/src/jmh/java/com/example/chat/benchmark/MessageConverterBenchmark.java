@@ -0,0 +1,74 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.messaging.ChatMessageConverter;
+import com.example.chat.messaging.ChatMessageConverter.ChatCodec;
+import com.example.chat.model.ChatMessageDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AMQP message conversion for the RabbitMQ hop: the plain Jackson converter
+ * compared with the chat converter in JSON and BINARY mode.
+ * Payload sizes are printed per trial; at 4096 characters the binary body is deflated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageConverterBenchmark {
+
+    @Param({"jackson", "json", "binary"})
+    private String converter;
+
+    @Param({"32", "512", "4096"})
+    private int contentLength;
+
+    private MessageConverter messageConverter;
+    private ChatMessageDTO message;
+    private Message encoded;
+
+    @Setup
+    public void setUp() {
+        messageConverter = switch (converter) {
+            case "jackson" -> new Jackson2JsonMessageConverter();
+            case "json" -> new ChatMessageConverter(new Jackson2JsonMessageConverter(), ChatCodec.JSON, 1024);
+            case "binary" -> new ChatMessageConverter(new Jackson2JsonMessageConverter(), ChatCodec.BINARY, 1024);
+            default -> throw new IllegalArgumentException("Unknown converter " + converter);
+        };
+        message = SampleMessages.message(contentLength);
+        encoded = messageConverter.toMessage(message, new MessageProperties());
+        System.out.printf("%n%s payload: %d bytes%n", converter, encoded.getBody().length);
+    }
+
+    @Benchmark
+    public Message encode() {
+        return messageConverter.toMessage(message, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decode() {
+        return messageConverter.fromMessage(encoded);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return messageConverter.fromMessage(messageConverter.toMessage(message, new MessageProperties()));
+    }
+}
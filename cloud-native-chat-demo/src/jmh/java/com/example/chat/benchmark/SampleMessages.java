@@ -0,0 +1,40 @@
+package com.example.chat.benchmark;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.ChatRoom;
+
+import java.time.LocalDateTime;
+
+/**
+ * Representative chat messages shared by the benchmarks.
+ */
+final class SampleMessages {
+
+    private static final String WORDS = "the quick brown fox jumps over the lazy dog while the chat keeps scrolling ";
+
+    private SampleMessages() {
+    }
+
+    /**
+     * A persisted chat message with content of roughly the given length
+     */
+    static ChatMessageDTO message(int contentLength) {
+        return new ChatMessageDTO(
+            1_234_567L,
+            "alice",
+            content(contentLength),
+            ChatMessage.MessageType.CHAT,
+            LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000),
+            ChatRoom.DEFAULT
+        );
+    }
+
+    static String content(int length) {
+        StringBuilder content = new StringBuilder(length);
+        while (content.length() < length) {
+            content.append(WORDS, 0, Math.min(WORDS.length(), length - content.length()));
+        }
+        return content.toString();
+    }
+}
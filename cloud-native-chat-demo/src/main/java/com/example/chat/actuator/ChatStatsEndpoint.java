@@ -1,14 +1,13 @@
 package com.example.chat.actuator;
 
-import com.example.chat.service.ChatService;
+import com.example.chat.service.MessageRateCounter;
 import com.example.chat.service.UserSessionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
 
 @Component
 @Endpoint(id = "chat")
@@ -16,14 +15,34 @@ import java.util.Map;
 public class ChatStatsEndpoint {
 
     private final UserSessionService userSessionService;
-    private final ChatService chatService;
+    private final MessageRateCounter rateCounter;
 
+    /**
+     * Served from in-memory counters; no database query per scrape
+     */
     @ReadOperation
-    public Map<String, Object> chatStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("onlineUsers", userSessionService.getOnlineUserCount());
-        stats.put("messagesLast24Hours", chatService.getChatMessageCount());
-        stats.put("activeUsernames", userSessionService.getActiveUsers());
-        return stats;
+    public ChatStats chatStats() {
+        return new ChatStats(
+            userSessionService.getOnlineUserCount(),
+            userSessionService.getOnlineSessionCount(),
+            userSessionService.getInstanceCount(),
+            rateCounter.getWindowCount(),
+            rateCounter.getLastMinuteCount(),
+            rateCounter.getRatePerMinute(5),
+            rateCounter.getRatePerMinute(60),
+            userSessionService.getActiveUsers()
+        );
+    }
+
+    public record ChatStats(
+        int onlineUsers,
+        int onlineSessions,
+        int instances,
+        long messagesLast24Hours,
+        long messagesLastMinute,
+        double messagesPerMinute5m,
+        double messagesPerMinute1h,
+        Set<String> activeUsernames
+    ) {
     }
 }
@@ -0,0 +1,45 @@
+package com.example.chat.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Identity of this running instance.
+ * Shared by everything that needs a stable per-process id (per-instance queues, UI badge).
+ * Metrics use {@link #getMetricsInstance()} instead, which survives restarts.
+ */
+@Component
+@Getter
+public class InstanceInfo {
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Instance label for metrics: the Cloud Foundry app GUID and instance index, else the
+     * host name. A restarted instance keeps its label, so it continues the same time series
+     * instead of adding new ones.
+     */
+    private final String metricsInstance;
+
+    @Value("${app.version}")
+    private String appVersion;
+
+    @Value("${app.deployment.color}")
+    private String deploymentColor;
+
+    public InstanceInfo(
+            @Value("${vcap.application.application_id:}") String applicationId,
+            @Value("${CF_INSTANCE_INDEX:}") String instanceIndex,
+            @Value("${HOSTNAME:}") String hostname) {
+        if (!applicationId.isEmpty() && !instanceIndex.isEmpty()) {
+            this.metricsInstance = applicationId + ":" + instanceIndex;
+        } else if (!hostname.isEmpty()) {
+            this.metricsInstance = hostname;
+        } else {
+            this.metricsInstance = "local";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.chat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Tag every meter with the instance and deployment it comes from,
+     * so blue and green instances can be compared side by side.
+     * The instance tag is stable across restarts (see {@link InstanceInfo#getMetricsInstance()}).
+     */
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> instanceTags(InstanceInfo instanceInfo) {
+        return registry -> registry.config().commonTags(
+            "instance", instanceInfo.getMetricsInstance(),
+            "color", instanceInfo.getDeploymentColor(),
+            "version", instanceInfo.getAppVersion()
+        );
+    }
+}
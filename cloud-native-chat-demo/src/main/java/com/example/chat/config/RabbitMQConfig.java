@@ -1,19 +1,37 @@
 package com.example.chat.config;
 
+import com.example.chat.messaging.ChatMessageConverter;
+import com.example.chat.messaging.ChatMessageConverter.ChatCodec;
+import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.PresenceEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.BatchingRabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration
+@RegisterReflectionForBinding({ChatMessageDTO.class, PresenceEvent.class})
+@Slf4j
 public class RabbitMQConfig {
 
     @Value("${chat.queue.name}")
@@ -22,11 +40,51 @@ public class RabbitMQConfig {
     @Value("${chat.exchange.name}")
     private String exchangeName;
 
-    @Value("${chat.routing.key}")
-    private String routingKey;
+    @Value("${chat.routing.key-prefix:chat.room.}")
+    private String routingKeyPrefix;
 
+    @Value("${chat.presence.exchange:chat.presence}")
+    private String presenceExchangeName;
+
+    @Value("${chat.queue.per-instance:true}")
+    private boolean perInstanceQueue;
+
+    @Value("${chat.messaging.codec:JSON}")
+    private ChatCodec codec;
+
+    @Value("${chat.messaging.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${chat.messaging.publish-batch.enabled:false}")
+    private boolean publishBatchEnabled;
+
+    @Value("${chat.messaging.publish-batch.size:100}")
+    private int publishBatchSize;
+
+    @Value("${chat.messaging.publish-batch.buffer-limit:65536}")
+    private int publishBatchBufferLimit;
+
+    @Value("${chat.messaging.publish-batch.timeout-ms:10}")
+    private long publishBatchTimeoutMs;
+
+    @Value("${chat.messaging.consumer-batch.size:1}")
+    private int consumerBatchSize;
+
+    @Value("${chat.messaging.consumer-batch.receive-timeout-ms:20}")
+    private long consumerBatchReceiveTimeoutMs;
+
+    /**
+     * Queue consumed by this instance.
+     * In per-instance mode every instance declares its own exclusive, auto-delete queue,
+     * bound by {@link com.example.chat.service.ChatRoomService} to the rooms it has
+     * subscribers for, so each message is delivered to every instance that needs it
+     * instead of being load-balanced between them as competing consumers.
+     */
     @Bean
-    public Queue chatQueue() {
+    public Queue chatQueue(InstanceInfo instanceInfo) {
+        if (perInstanceQueue) {
+            return new Queue(queueName + "." + instanceInfo.getInstanceId(), false, true, true);
+        }
         return new Queue(queueName, true);
     }
 
@@ -35,23 +93,116 @@ public class RabbitMQConfig {
         return new TopicExchange(exchangeName);
     }
 
+    /**
+     * The shared queue receives every room; per-instance queues are bound per room at runtime
+     */
     @Bean
-    public Binding binding(Queue chatQueue, TopicExchange chatExchange) {
-        return BindingBuilder
+    public Declarables sharedQueueBindings(Queue chatQueue, TopicExchange chatExchange) {
+        if (perInstanceQueue) {
+            return new Declarables();
+        }
+        return new Declarables(BindingBuilder
             .bind(chatQueue)
             .to(chatExchange)
-            .with(routingKey);
+            .with(routingKeyPrefix + "*"));
     }
 
+    /**
+     * Presence deltas, heartbeats and snapshots go to every instance,
+     * each through its own auto-delete queue.
+     */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public FanoutExchange presenceExchange() {
+        return new FanoutExchange(presenceExchangeName);
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
-        RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
+    public Queue presenceQueue(InstanceInfo instanceInfo) {
+        return new Queue(presenceExchangeName + "." + instanceInfo.getInstanceId(), false, true, true);
+    }
+
+    @Bean
+    public Binding presenceBinding(Queue presenceQueue, FanoutExchange presenceExchange) {
+        return BindingBuilder.bind(presenceQueue).to(presenceExchange);
+    }
+
+    /**
+     * Converter for the chat hop.
+     * Chat messages are published with the configured codec and decoded by content type,
+     * so switch chat.messaging.codec to BINARY only once every instance can read it.
+     * JSON uses Boot's ObjectMapper, the one the STOMP converter uses, so a JSON body can be
+     * forwarded to WebSocket clients unchanged (ISO timestamps on both hops).
+     */
+    @Bean
+    public MessageConverter chatMessageConverter(ObjectMapper objectMapper) {
+        return new ChatMessageConverter(new Jackson2JsonMessageConverter(objectMapper), codec, compressionThreshold);
+    }
+
+    /**
+     * Template used to publish chat messages.
+     * In publish-batch mode messages are collected into one AMQP message per batch
+     * (flushed when full or after the timeout); the listener container splits them again.
+     * The template owns its batch timer: destroying the template flushes the pending batch,
+     * then shuts the timer down.
+     * Publisher confirms arrive asynchronously and only failures are logged, with the
+     * correlation id when the publisher set one (see ChatService).
+     */
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter chatMessageConverter,
+                                         MeterRegistry meterRegistry) {
+        RabbitTemplate template;
+        if (publishBatchEnabled) {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setThreadNamePrefix("chat-publish-batch-");
+            scheduler.initialize();
+            template = new BatchingRabbitTemplate(
+                connectionFactory,
+                new SimpleBatchingStrategy(publishBatchSize, publishBatchBufferLimit, publishBatchTimeoutMs),
+                scheduler
+            ) {
+                @Override
+                public void destroy() {
+                    super.destroy();
+                    scheduler.destroy();
+                }
+            };
+        } else {
+            template = new RabbitTemplate(connectionFactory);
+        }
+        template.setMessageConverter(chatMessageConverter);
+
+        Counter nacked = Counter.builder("chat.publish.nacked")
+            .description("Publishes negatively confirmed by the broker")
+            .register(meterRegistry);
+        template.setConfirmCallback((correlationData, ack, cause) -> {
+            if (!ack) {
+                nacked.increment();
+                log.warn("RabbitMQ did not confirm publish {}: {}",
+                    correlationData != null ? correlationData.getId() : "(batch)", cause);
+            }
+        });
         return template;
     }
+
+    /**
+     * Listener container for the chat queue.
+     * Always a batch listener: with a consumer batch size of 1 every delivery is
+     * handed over on its own, larger sizes collect up to that many messages (or
+     * whatever arrived within the receive timeout) into one listener call.
+     * Prefetch and concurrency come from spring.rabbitmq.listener.simple.*; with
+     * max-concurrency above concurrency the container adds consumers while the
+     * queue stays busy and removes them when it drains.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory chatListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(consumerBatchSize);
+        factory.setReceiveTimeout(consumerBatchReceiveTimeoutMs);
+        return factory;
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.chat.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes fallback for replica routing.
+ *
+ * A request that writes (any method but GET/HEAD, e.g. POST /api/chat/send) stamps
+ * the client with a short-lived cookie; while it is fresh, that client's reads go to
+ * the primary, so its history and polls include what it just sent even if the
+ * replica lags. Other clients keep reading from the replica.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String COOKIE = "chat-last-write";
+
+    private final long windowMs;
+
+    public ReadYourWritesInterceptor(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(System.currentTimeMillis()))
+                .path("/")
+                .maxAge(Duration.ofMillis(windowMs).plusSeconds(1))
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+            response.addHeader("Set-Cookie", cookie.toString());
+            ReadWriteRoutingDataSource.setPrimaryRequired(true);
+        } else if (recentlyWrote(request)) {
+            ReadWriteRoutingDataSource.setPrimaryRequired(true);
+        }
+        return true;
+    }
+
+    /**
+     * Long-polls continue on another thread; clear the request thread now
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReadWriteRoutingDataSource.setPrimaryRequired(false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadWriteRoutingDataSource.setPrimaryRequired(false);
+    }
+
+    private boolean recentlyWrote(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return System.currentTimeMillis() - Long.parseLong(cookie.getValue()) < windowMs;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
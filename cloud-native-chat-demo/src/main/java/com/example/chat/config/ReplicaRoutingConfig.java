@@ -0,0 +1,85 @@
+package com.example.chat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica routing for MySQL (chat.datasource.replica.enabled=true).
+ *
+ * The primary pool is configured as usual through spring.datasource.* (and
+ * spring.datasource.hikari.*), the replica pool through chat.datasource.replica.*.
+ * Both are separate Hikari pools named "primary" and "replica", so hikaricp.*
+ * metrics are reported per side. Read-only transactions (the history queries in
+ * ChatMessageRepository and the rate counter seed) use the replica; saves, the
+ * write-behind flush and retention cleanup use the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "chat.datasource.replica.enabled", havingValue = "true")
+@Slf4j
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+
+    @Value("${chat.datasource.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("chat.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${chat.datasource.replica.url}") String url,
+            @Value("${chat.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${chat.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(properties.determineDriverClassName())
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        log.info("Routing read-only transactions to replica {}", url);
+        return dataSource;
+    }
+
+    /**
+     * The DataSource used by JPA and JdbcTemplate
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing =
+            new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (readYourWritesMs > 0) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(readYourWritesMs));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads that get pinned to their carrier thread.
+ *
+ * Blocking inside a synchronized block (older JDBC drivers, some pools) pins the
+ * carrier on JDK 21-23 and quietly turns virtual threads back into a small
+ * platform pool. This listens to the JFR jdk.VirtualThreadPinned event, counts
+ * occurrences (chat.virtual-threads.pinned) and logs the application frame
+ * closest to the top of the stack so the offending call can be found.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private final Counter pinnedCounter;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.virtual-threads.pinning-threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinnedCounter = Counter.builder("chat.virtual-threads.pinned")
+            .description("Virtual threads pinned to a carrier for longer than the threshold")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinnedCounter.increment();
+            String frame = "unknown";
+            if (event.getStackTrace() != null) {
+                List<RecordedFrame> frames = event.getStackTrace().getFrames();
+                frame = frames.stream()
+                    .filter(f -> f.getMethod().getType().getName().startsWith("com.example"))
+                    .findFirst()
+                    .or(() -> frames.stream().findFirst())
+                    .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName())
+                    .orElse(frame);
+            }
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+        });
+        stream.startAsync();
+        log.info("Virtual threads enabled, reporting pinning longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
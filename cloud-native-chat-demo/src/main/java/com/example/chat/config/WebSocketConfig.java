@@ -1,21 +1,62 @@
 package com.example.chat.config;
 
+import com.example.chat.service.ChatRoomService;
+import com.example.chat.websocket.OutboundBackpressureHandler;
+import com.example.chat.websocket.RoomSubscriptionInterceptor;
+import com.example.chat.websocket.SlowConsumerPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<ChatRoomService> chatRoomService;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${chat.websocket.outbound.channel-pool-size:8}")
+    private int outboundChannelPoolSize;
+
+    @Value("${chat.websocket.outbound.send-pool-size:32}")
+    private int sendPoolSize;
+
+    @Value("${chat.websocket.outbound.slow-consumer-policy:DROP_OLDEST}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    @Value("${chat.websocket.outbound.max-queued-messages:200}")
+    private int maxQueuedMessages;
+
+    @Value("${chat.websocket.outbound.max-queued-bytes:524288}")
+    private int maxQueuedBytes;
+
+    @Value("${chat.websocket.outbound.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple in-memory broker for sending messages to clients
         config.enableSimpleBroker("/topic");
         // Application destination prefix for messages from clients
         config.setApplicationDestinationPrefixes("/app");
+        // Keep per-session message order when the outbound channel runs tasks in parallel
+        config.setPreservePublishOrder(true);
     }
 
     @Override
@@ -24,5 +65,58 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-chat")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Handle each session's frames in order: on the inbound executor (a virtual thread per
+        // frame) a SEND could otherwise overtake the SUBSCRIBE or the previous SEND
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Bind rooms on SUBSCRIBE, refusing rooms beyond chat.rooms.max-bound
+        registration.interceptors(new RoomSubscriptionInterceptor(chatRoomService));
+        // STOMP frames from clients end up in JDBC and AMQP calls; let them block on virtual threads
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("chat-ws-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("chat-ws-outbound-"));
+            return;
+        }
+        // Fan-out threads only enqueue into per-session queues, so a small pool is enough
+        registration.taskExecutor()
+                .corePoolSize(outboundChannelPoolSize)
+                .maxPoolSize(outboundChannelPoolSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Spring's own session buffer sits outside the bounded queue; keep it as a last-resort guard
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(maxQueuedBytes * 2);
+
+        Executor sendExecutor = createSendExecutor();
+        registration.addDecoratorFactory(handler -> new OutboundBackpressureHandler(
+                handler, sendExecutor, slowConsumerPolicy, maxQueuedMessages, maxQueuedBytes,
+                sendTimeLimitMs, meterRegistry));
+    }
+
+    /**
+     * Writes to the sockets happen on a separate executor, one drain task per session at a time.
+     * With virtual threads a stalled client only parks a virtual thread.
+     */
+    private Executor createSendExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("chat-ws-send-");
+        }
+        ThreadPoolTaskExecutor sendExecutor = new ThreadPoolTaskExecutor();
+        sendExecutor.setThreadNamePrefix("chat-ws-send-");
+        sendExecutor.setCorePoolSize(sendPoolSize);
+        sendExecutor.setMaxPoolSize(sendPoolSize);
+        sendExecutor.initialize();
+        return sendExecutor;
     }
 }
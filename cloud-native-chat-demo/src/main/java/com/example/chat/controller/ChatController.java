@@ -22,7 +22,7 @@ public class ChatController {
     private final UserSessionService userSessionService;
 
     /**
-     * Handle incoming chat messages from WebSocket clients
+     * Handle incoming chat messages from WebSocket clients (the payload names the room)
      */
     @MessageMapping("/chat.send")
     public void sendMessage(@Payload ChatMessageDTO message) {
@@ -32,18 +32,22 @@ public class ChatController {
     }
 
     /**
-     * Handle user joining the chat
+     * Handle user joining the chat (joins without a username are ignored)
      */
     @MessageMapping("/chat.join")
     public void addUser(@Payload ChatMessageDTO message, SimpMessageHeaderAccessor headerAccessor) {
         String username = message.getUsername();
+        if (username == null || username.isBlank()) {
+            log.warn("Ignoring join without a username from session {}", headerAccessor.getSessionId());
+            return;
+        }
         log.info("User joining: {}", username);
 
         // Add username to WebSocket session
         headerAccessor.getSessionAttributes().put("username", username);
 
-        // Track user session
-        userSessionService.addUser(username);
+        // Track presence by WebSocket session (several tabs count as several sessions)
+        userSessionService.addUser(headerAccessor.getSessionId(), username);
 
         // Send join notification
         message.setType(ChatMessage.MessageType.JOIN);
@@ -57,12 +61,12 @@ public class ChatController {
      * Handle user leaving the chat
      */
     @MessageMapping("/chat.leave")
-    public void removeUser(@Payload ChatMessageDTO message) {
+    public void removeUser(@Payload ChatMessageDTO message, SimpMessageHeaderAccessor headerAccessor) {
         String username = message.getUsername();
         log.info("User leaving: {}", username);
 
-        // Remove user from tracking
-        userSessionService.removeUser(username);
+        // Remove this session from tracking (disconnects are handled by UserSessionService)
+        userSessionService.removeUser(headerAccessor.getSessionId());
 
         // Send leave notification
         message.setType(ChatMessage.MessageType.LEAVE);
@@ -1,62 +1,109 @@
 package com.example.chat.controller;
 
+import com.example.chat.config.InstanceInfo;
 import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.ChatRoom;
 import com.example.chat.service.ChatService;
+import com.example.chat.service.ChatRoomService;
+import com.example.chat.service.LongPollService;
+import com.example.chat.service.RoomSequenceTracker;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 
 @Controller
 @RequiredArgsConstructor
 public class WebController {
 
     private final ChatService chatService;
-    private final String instanceId = UUID.randomUUID().toString();
-
-    @Value("${app.version}")
-    private String appVersion;
-
-    @Value("${app.deployment.color}")
-    private String deploymentColor;
+    private final InstanceInfo instanceInfo;
+    private final LongPollService longPollService;
+    private final ChatRoomService chatRoomService;
+    private final RoomSequenceTracker sequenceTracker;
 
     @GetMapping("/")
     public String index(Model model) {
-        model.addAttribute("version", appVersion);
-        model.addAttribute("color", deploymentColor);
+        model.addAttribute("version", instanceInfo.getAppVersion());
+        model.addAttribute("color", instanceInfo.getDeploymentColor());
         return "index";
     }
 
     @GetMapping("/chat")
-    public String chat(Model model) {
-        model.addAttribute("instanceId", instanceId);
-        model.addAttribute("version", appVersion);
-        model.addAttribute("color", deploymentColor);
-        model.addAttribute("recentMessages", chatService.getRecentMessages());
+    public String chat(@RequestParam(required = false) String room, Model model) {
+        String chatRoom = ChatRoom.normalize(room);
+        model.addAttribute("room", chatRoom);
+        model.addAttribute("instanceId", instanceInfo.getInstanceId());
+        model.addAttribute("version", instanceInfo.getAppVersion());
+        model.addAttribute("color", instanceInfo.getDeploymentColor());
+        List<ChatMessageDTO> recentMessages = chatService.getLatestMessages(chatRoom);
+        model.addAttribute("recentMessages", recentMessages);
+        model.addAttribute("lastMessageId", recentMessages.stream()
+            .map(ChatMessageDTO::getId)
+            .filter(Objects::nonNull)
+            .max(Long::compare)
+            .orElse(0L));
         return "chat";
     }
 
     /**
      * Polling endpoint for fallback when WebSocket is not available
-     * Returns messages since the specified timestamp
+     * Returns one page of the room's messages after the specified message id.
+     * The legacy timestamp parameter is still accepted (bounded to one page).
+     * Cursor polls carry an ETag from the room's message sequence on this instance;
+     * a matching If-None-Match is answered with 304 without reading any messages.
+     * (No Last-Modified: a second-resolution date cannot tell two messages in the same second apart.)
      */
     @GetMapping("/api/messages/poll")
     @ResponseBody
     public ResponseEntity<List<ChatMessageDTO>> pollMessages(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
-        List<ChatMessageDTO> messages = chatService.getMessagesSince(since);
-        return ResponseEntity.ok(messages);
+            @RequestParam(required = false) String room,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            WebRequest webRequest) {
+        String chatRoom = ChatRoom.normalize(room);
+        if (after == null && since != null) {
+            return ResponseEntity.ok(chatService.getMessagesSince(chatRoom, since));
+        }
+        long afterId = after != null ? after : 0L;
+        // Bind the room for the unbind delay so its messages, and with them the validator, reach this instance
+        chatRoomService.lease(chatRoom);
+        // Read before the messages: one arriving in between changes the validator
+        RoomSequenceTracker.Validator validator = sequenceTracker.validator(chatRoom);
+        if (validator != null && webRequest.checkNotModified(validator.etag(afterId, limit))) {
+            return null;
+        }
+        List<ChatMessageDTO> messages = chatService.getMessagesAfter(chatRoom, afterId, limit);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(messages);
+    }
+
+    /**
+     * Long-poll endpoint for fallback when WebSocket is not available
+     * Holds the request (without a thread) until a message after the
+     * specified message id arrives or the long-poll timeout passes
+     */
+    @GetMapping("/api/messages/wait")
+    @ResponseBody
+    public DeferredResult<List<ChatMessageDTO>> waitForMessages(
+            @RequestParam(required = false) String room,
+            @RequestParam long after,
+            @RequestParam(defaultValue = "0") int limit) {
+        return longPollService.await(ChatRoom.normalize(room), after, limit);
     }
 
     /**
@@ -69,4 +116,13 @@ public class WebController {
         chatService.sendMessage(message);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Invalid room names are a client error
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleInvalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
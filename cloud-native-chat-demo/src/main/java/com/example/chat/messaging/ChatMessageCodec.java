@@ -0,0 +1,222 @@
+package com.example.chat.messaging;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding of {@link ChatMessageDTO}.
+ *
+ * Layout (all integers are unsigned LEB128 varints):
+ * <pre>
+ *   header    1 byte   bit 7 = body is deflated, bits 0-6 = format version
+ *   --- body (possibly deflated) ---
+ *   presence  1 byte   bit 0 id, bit 1 username, bit 2 content, bit 3 type, bit 4 timestamp, bit 5 room
+ *   id        varint
+ *   username  varint length + UTF-8 bytes
+ *   content   varint length + UTF-8 bytes
+ *   type      1 byte   MessageType ordinal
+ *   timestamp varint   microseconds since the epoch (UTC wall clock of the LocalDateTime)
+ *   room      varint length + UTF-8 bytes
+ * </pre>
+ * Fields are only ever appended, so a decoder that does not know a presence bit
+ * simply stops before the field (the room was added without a version change).
+ * Compression is flagged inside the payload rather than in AMQP headers because
+ * batched publishes share the headers of their first message.
+ */
+public final class ChatMessageCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int DEFLATED = 0x80;
+    private static final int HAS_ID = 1;
+    private static final int HAS_USERNAME = 1 << 1;
+    private static final int HAS_CONTENT = 1 << 2;
+    private static final int HAS_TYPE = 1 << 3;
+    private static final int HAS_TIMESTAMP = 1 << 4;
+    private static final int HAS_ROOM = 1 << 5;
+
+    private static final ChatMessage.MessageType[] TYPES = ChatMessage.MessageType.values();
+
+    private ChatMessageCodec() {
+    }
+
+    /**
+     * Encode a message, deflating the body when it is larger than the threshold
+     */
+    public static byte[] encode(ChatMessageDTO message, int compressionThreshold) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        int presence = (message.getId() != null ? HAS_ID : 0)
+            | (message.getUsername() != null ? HAS_USERNAME : 0)
+            | (message.getContent() != null ? HAS_CONTENT : 0)
+            | (message.getType() != null ? HAS_TYPE : 0)
+            | (message.getTimestamp() != null ? HAS_TIMESTAMP : 0)
+            | (message.getRoom() != null ? HAS_ROOM : 0);
+        body.write(presence);
+        if (message.getId() != null) {
+            writeVarint(body, message.getId());
+        }
+        if (message.getUsername() != null) {
+            writeString(body, message.getUsername());
+        }
+        if (message.getContent() != null) {
+            writeString(body, message.getContent());
+        }
+        if (message.getType() != null) {
+            body.write(message.getType().ordinal());
+        }
+        if (message.getTimestamp() != null) {
+            LocalDateTime time = message.getTimestamp();
+            writeVarint(body, time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000);
+        }
+        if (message.getRoom() != null) {
+            writeString(body, message.getRoom());
+        }
+
+        byte[] raw = body.toByteArray();
+        if (compressionThreshold > 0 && raw.length > compressionThreshold) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                return withHeader(VERSION | DEFLATED, deflated);
+            }
+        }
+        return withHeader(VERSION, raw);
+    }
+
+    public static ChatMessageDTO decode(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty chat message payload");
+        }
+        int header = bytes[0] & 0xFF;
+        if ((header & ~DEFLATED) != VERSION) {
+            throw new IllegalArgumentException("Unsupported chat message format version " + (header & ~DEFLATED));
+        }
+        byte[] body = (header & DEFLATED) != 0 ? inflate(bytes) : bytes;
+        Reader reader = new Reader(body, (header & DEFLATED) != 0 ? 0 : 1);
+
+        int presence = reader.readByte();
+        ChatMessageDTO message = new ChatMessageDTO();
+        if ((presence & HAS_ID) != 0) {
+            message.setId(reader.readVarint());
+        }
+        if ((presence & HAS_USERNAME) != 0) {
+            message.setUsername(reader.readString());
+        }
+        if ((presence & HAS_CONTENT) != 0) {
+            message.setContent(reader.readString());
+        }
+        if ((presence & HAS_TYPE) != 0) {
+            message.setType(TYPES[reader.readByte()]);
+        }
+        if ((presence & HAS_TIMESTAMP) != 0) {
+            long micros = reader.readVarint();
+            message.setTimestamp(LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC));
+        }
+        if ((presence & HAS_ROOM) != 0) {
+            message.setRoom(reader.readString());
+        }
+        return message;
+    }
+
+    private static byte[] withHeader(int header, byte[] body) {
+        byte[] result = new byte[body.length + 1];
+        result[0] = (byte) header;
+        System.arraycopy(body, 0, result, 1, body.length);
+        return result;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed chat message");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed chat message", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readVarint();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.chat.messaging;
+
+import com.example.chat.model.ChatMessageDTO;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * AMQP converter for chat messages that selects the codec by content type.
+ *
+ * Outbound chat messages are written with the configured codec (JSON or the
+ * compact {@link ChatMessageCodec} binary format); everything else goes through
+ * the JSON converter. Inbound messages are decoded according to their
+ * content-type header, so instances running different codecs during a
+ * blue/green rollout can still read each other's messages.
+ * JSON chat messages are marked with {@link #STOMP_FORMAT_HEADER} when they are
+ * written in the exact format STOMP clients receive, so a consumer may forward
+ * their bytes as they are.
+ */
+public class ChatMessageConverter implements MessageConverter {
+
+    public static final String BINARY_CONTENT_TYPE = "application/x-chat-binary";
+    // Set by publishers whose JSON body matches the STOMP payload format (bump the value when that format changes)
+    public static final String STOMP_FORMAT_HEADER = "x-chat-stomp-format";
+    public static final String STOMP_FORMAT = "1";
+
+    private final MessageConverter jsonConverter;
+    private final ChatCodec outboundCodec;
+    private final int compressionThreshold;
+
+    public ChatMessageConverter(MessageConverter jsonConverter, ChatCodec outboundCodec, int compressionThreshold) {
+        this.jsonConverter = jsonConverter;
+        this.outboundCodec = outboundCodec;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if (outboundCodec == ChatCodec.BINARY && object instanceof ChatMessageDTO message) {
+            byte[] body = ChatMessageCodec.encode(message, compressionThreshold);
+            messageProperties.setContentType(BINARY_CONTENT_TYPE);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        }
+        if (object instanceof ChatMessageDTO) {
+            messageProperties.setHeader(STOMP_FORMAT_HEADER, STOMP_FORMAT);
+        }
+        return jsonConverter.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        String contentType = message.getMessageProperties().getContentType();
+        if (contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE)) {
+            try {
+                return ChatMessageCodec.decode(message.getBody());
+            } catch (RuntimeException e) {
+                throw new MessageConversionException("Failed to decode binary chat message", e);
+            }
+        }
+        return jsonConverter.fromMessage(message);
+    }
+
+    /**
+     * The body of a single JSON-encoded chat message, as the publisher wrote it, or null
+     * for binary messages, messages without the STOMP format header (older publishers or
+     * other JSON settings) and anything else. Used to forward the bytes to STOMP clients
+     * without decoding and re-encoding them.
+     */
+    public static byte[] chatJsonBody(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String contentType = properties.getContentType();
+        if (contentType == null || !contentType.startsWith(MessageProperties.CONTENT_TYPE_JSON)) {
+            return null;
+        }
+        if (!STOMP_FORMAT.equals(properties.getHeader(STOMP_FORMAT_HEADER))) {
+            return null;
+        }
+        Object typeId = properties.getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        return ChatMessageDTO.class.getName().equals(typeId) ? message.getBody() : null;
+    }
+
+    /**
+     * Codec used for outbound chat messages
+     */
+    public enum ChatCodec {
+        JSON,
+        BINARY
+    }
+}
@@ -31,6 +31,9 @@ public class ChatMessage {
     @Column(nullable = false)
     private MessageType type;
 
+    @Column(nullable = false, length = 64)
+    private String room = ChatRoom.DEFAULT;
+
     public enum MessageType {
         CHAT,
         JOIN,
@@ -12,21 +12,26 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ChatMessageDTO implements Serializable {
 
+    // Database id, used as the history cursor (null until the message is persisted)
+    private Long id;
     private String username;
     private String content;
     private ChatMessage.MessageType type;
     private LocalDateTime timestamp;
+    private String room;
 
     public static ChatMessageDTO fromEntity(ChatMessage message) {
         return new ChatMessageDTO(
+            message.getId(),
             message.getUsername(),
             message.getContent(),
             message.getType(),
-            message.getTimestamp()
+            message.getTimestamp(),
+            message.getRoom()
         );
     }
 
     public ChatMessage toEntity() {
-        return new ChatMessage(null, username, content, timestamp, type);
+        return new ChatMessage(null, username, content, timestamp, type, ChatRoom.normalize(room));
     }
 }
@@ -0,0 +1,51 @@
+package com.example.chat.model;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Room names and the STOMP destinations derived from them.
+ * Names are restricted to a safe subset so they can be used verbatim
+ * in AMQP routing keys (no dots or wildcards) and destination paths.
+ */
+public final class ChatRoom {
+
+    public static final String DEFAULT = "general";
+    public static final String DESTINATION_PREFIX = "/topic/rooms/";
+
+    private static final Pattern NAME = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+
+    private ChatRoom() {
+    }
+
+    /**
+     * Lower-cased room name, the default room when none is given
+     *
+     * @throws IllegalArgumentException if the name contains other characters
+     */
+    public static String normalize(String room) {
+        if (room == null || room.isBlank()) {
+            return DEFAULT;
+        }
+        String name = room.trim().toLowerCase(Locale.ROOT);
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid room name: " + room);
+        }
+        return name;
+    }
+
+    public static String destination(String room) {
+        return DESTINATION_PREFIX + room;
+    }
+
+    /**
+     * Room of a /topic/rooms/{room} destination, or null for any other destination
+     */
+    public static String fromDestination(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return null;
+        }
+        String room = destination.substring(DESTINATION_PREFIX.length());
+        return NAME.matcher(room).matches() ? room : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.chat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Presence update exchanged between instances on the presence exchange.
+ * Every instance numbers its own changes; receivers use the sequence to
+ * detect missed deltas and ask for a snapshot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceEvent {
+
+    private Type type;
+    // Instance that owns the sessions (or sends the request)
+    private String instanceId;
+    // Sequence of the owner's last change included in this event
+    private long sequence;
+    private String sessionId;
+    private String username;
+    // SNAPSHOT: all sessions of the owner (session id -> username)
+    private Map<String, String> sessions;
+    // SYNC_REQUEST: instance asked to send a snapshot (null = everyone)
+    private String targetInstanceId;
+
+    public enum Type {
+        JOIN,
+        LEAVE,
+        HEARTBEAT,
+        SNAPSHOT,
+        SYNC_REQUEST,
+        GOODBYE
+    }
+}
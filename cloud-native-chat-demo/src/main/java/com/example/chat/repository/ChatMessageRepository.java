@@ -1,16 +1,23 @@
 package com.example.chat.repository;
 
 import com.example.chat.model.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * The queries declared here run in read-only transactions, so with replica routing
+ * enabled they are served by the replica. Inherited CRUD methods (save, delete) keep
+ * the read-write transactions of SimpleJpaRepository and go to the primary.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
     /**
@@ -20,15 +27,23 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     List<ChatMessage> findMessagesSince(@Param("since") LocalDateTime since);
 
     /**
-     * Count messages in the last 24 hours
+     * Find messages of a room after a timestamp, bounded to one page
      */
-    @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.timestamp >= :since AND m.type = 'CHAT'")
-    long countChatMessagesSince(@Param("since") LocalDateTime since);
+    @Query("SELECT m FROM ChatMessage m WHERE m.room = :room AND m.timestamp > :since ORDER BY m.timestamp ASC")
+    List<ChatMessage> findMessagesSince(@Param("room") String room, @Param("since") LocalDateTime since,
+                                        Pageable page);
 
     /**
-     * Delete messages older than specified timestamp
+     * Keyset page of a room's messages with an id greater than the cursor, oldest first.
+     * Served by a range scan on the (room, id) index.
      */
-    @Modifying
-    @Query("DELETE FROM ChatMessage m WHERE m.timestamp < :before")
-    void deleteMessagesOlderThan(@Param("before") LocalDateTime before);
+    @Query("SELECT m FROM ChatMessage m WHERE m.room = :room AND m.id > :afterId ORDER BY m.id ASC")
+    List<ChatMessage> findPageAfter(@Param("room") String room, @Param("afterId") long afterId, Pageable page);
+
+    /**
+     * Keyset page of a room's messages with an id lower than the cursor, newest first.
+     * Served by a backward range scan on the (room, id) index.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.room = :room AND m.id < :beforeId ORDER BY m.id DESC")
+    List<ChatMessage> findPageBefore(@Param("room") String room, @Param("beforeId") long beforeId, Pageable page);
 }
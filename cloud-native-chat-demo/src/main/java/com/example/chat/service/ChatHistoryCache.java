@@ -0,0 +1,675 @@
+package com.example.chat.service;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.repository.ChatMessageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded, time-windowed cache of recent chat history for this instance, one ring per room.
+ *
+ * Messages are kept in a ring buffer ordered by timestamp. Each slot holds a
+ * compact {@link Entry} (epoch micros instead of a LocalDateTime, canonical
+ * username strings) so a full retention window stays cheap on the heap.
+ * Keyset (message id) queries are answered in id order, the order of the
+ * client's cursor, from the entries that carry a database id. In write-behind
+ * mode messages arrive without one; the ids are then read back from the room's
+ * newest rows at most once per chat.history.cache.id-refresh-ms, so all pollers
+ * of a room share one small query instead of each going to MySQL.
+ * A room's ring exists while this instance is bound to the room
+ * ({@link ChatRoomService} opens and closes it): it is warmed from the database
+ * when the binding is added and then kept up to date by {@link ChatMessageListener}.
+ * Warm-up runs in the background; the room is answered from the database until
+ * it is done. Rings start small and grow on demand up to
+ * chat.history.cache.max-messages, and all rings together hold at most
+ * chat.history.cache.max-total-messages: a ring that cannot grow any more drops
+ * its oldest messages, and a room opened when no room is left is not cached.
+ * Rooms without a ring are answered from the database. This relies on
+ * per-instance queues so that a bound instance sees every message of the room.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.history.cache.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ChatHistoryCache {
+
+    private static final int MAX_CANONICAL_USERNAMES = 10_000;
+    // How far to look for ids that are out of timestamp order (committed or delivered late,
+    // or assigned per write-behind batch)
+    private static final int REORDER_WINDOW = 256;
+    // A message still without an id after this long was never written
+    private static final long UNRESOLVED_TIMEOUT_MICROS = 60_000_000L;
+    private static final Comparator<Entry> BY_ID = Comparator.comparingLong(Entry::id);
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int WARM_UP_THREADS = 2;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final int maxMessages;
+    private final long maxTotalMessages;
+    private final long windowMicros;
+    private final long idRefreshNanos;
+    private final Map<String, String> usernames = new ConcurrentHashMap<>();
+    private final Map<String, RoomHistory> rooms = new ConcurrentHashMap<>();
+    // Ring slots allocated by all rooms together
+    private final AtomicLong reservedSlots = new AtomicLong();
+    private final ExecutorService warmUpExecutor = Executors.newFixedThreadPool(WARM_UP_THREADS,
+        Thread.ofPlatform().name("chat-history-warm-up-", 0).daemon().factory());
+
+    public ChatHistoryCache(
+            ChatMessageRepository chatMessageRepository,
+            @Value("${chat.history.retention.hours}") int retentionHours,
+            @Value("${chat.history.cache.max-messages:50000}") int maxMessages,
+            @Value("${chat.history.cache.max-total-messages:200000}") long maxTotalMessages,
+            @Value("${chat.history.cache.id-refresh-ms:100}") long idRefreshMs) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.maxMessages = maxMessages;
+        this.maxTotalMessages = maxTotalMessages;
+        this.windowMicros = retentionHours * 3_600_000_000L;
+        this.idRefreshNanos = TimeUnit.MILLISECONDS.toNanos(idRefreshMs);
+    }
+
+    /**
+     * Start caching a room. Call after the room's binding exists, so that the
+     * ring receives live messages while it is warmed from the database.
+     */
+    public void open(String room) {
+        if (rooms.containsKey(room)) {
+            return;
+        }
+        int capacity = Math.min(INITIAL_CAPACITY, maxMessages);
+        if (!reserve(capacity)) {
+            log.debug("Chat history cache full, room {} is served from the database", room);
+            return;
+        }
+        RoomHistory history = new RoomHistory(room, capacity);
+        if (rooms.putIfAbsent(room, history) != null) {
+            release(capacity);
+            return;
+        }
+        try {
+            warmUpExecutor.execute(history::warmUp);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            close(room);
+        }
+    }
+
+    /**
+     * Stop caching a room (its binding is about to be removed)
+     */
+    public void close(String room) {
+        RoomHistory history = rooms.remove(room);
+        if (history != null) {
+            history.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        warmUpExecutor.shutdownNow();
+    }
+
+    /**
+     * Add a message received from RabbitMQ
+     */
+    public void add(ChatMessageDTO message) {
+        RoomHistory history = rooms.get(message.getRoom());
+        if (history != null && message.getTimestamp() != null) {
+            history.add(toEntry(message));
+        }
+    }
+
+    /**
+     * Up to limit messages of a room newer than the given timestamp, oldest first, or null
+     * when the cache cannot answer (room not cached, not warmed yet, or older than what it holds).
+     */
+    public List<ChatMessageDTO> getMessagesSince(String room, LocalDateTime since, int limit) {
+        RoomHistory history = rooms.get(room);
+        return history != null ? history.getMessagesSince(since, limit) : null;
+    }
+
+    /**
+     * Up to limit messages of a room with an id greater than the cursor, in id order,
+     * or null when the cache cannot answer.
+     */
+    public List<ChatMessageDTO> getMessagesAfter(String room, long afterId, int limit) {
+        RoomHistory history = rooms.get(room);
+        return history != null ? history.getMessagesAfter(afterId, limit) : null;
+    }
+
+    /**
+     * The limit messages of a room with the highest ids, in id order, or null when the cache
+     * cannot answer
+     */
+    public List<ChatMessageDTO> getLatestMessages(String room, int limit) {
+        RoomHistory history = rooms.get(room);
+        return history != null ? history.getLatestMessages(limit) : null;
+    }
+
+    /**
+     * Ring buffer of one room
+     */
+    private final class RoomHistory {
+
+        private final String room;
+        private Entry[] ring;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicBoolean resolving = new AtomicBoolean();
+
+        private int head;
+        private int size;
+        // Entries without a database id (write-behind messages not resolved yet)
+        private volatile int unresolved;
+        private volatile long resolvedAtNanos;
+        private volatile boolean warmed;
+        private volatile boolean closed;
+        // Every message newer than this instant is guaranteed to be in the ring
+        private long coveredSinceMicros = Long.MAX_VALUE;
+
+        RoomHistory(String room, int capacity) {
+            this.room = room;
+            this.ring = new Entry[capacity];
+        }
+
+        /**
+         * Load the retention window from the database (newest messages first, at most
+         * the cache capacity). Messages received while the query runs are kept and
+         * merged in without duplicates, matched by content rather than id since
+         * write-behind messages may not have theirs yet.
+         */
+        void warmUp() {
+            if (closed) {
+                return;
+            }
+            // Never load more than the ring can grow to with the slots still free
+            int pageSize = (int) Math.min(maxMessages, ring.length + Math.max(0, maxTotalMessages - reservedSlots.get()));
+            long since = toMicros(LocalDateTime.now()) - windowMicros;
+            List<Entry> loaded = chatMessageRepository.findPageBefore(room, Long.MAX_VALUE, PageRequest.of(0, pageSize))
+                .stream()
+                .map(ChatHistoryCache.this::toEntry)
+                .filter(entry -> entry.timestampMicros() > since)
+                .toList()
+                .reversed();
+
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                List<Entry> live = drain();
+                Set<MessageKey> known = new HashSet<>();
+                for (Entry entry : loaded) {
+                    known.add(MessageKey.of(entry, 0));
+                    // The database may round the last microsecond (see assignIds)
+                    known.add(MessageKey.of(entry, -1));
+                }
+                coveredSinceMicros = loaded.size() == pageSize ? loaded.getFirst().timestampMicros() : since;
+                loaded.forEach(this::insert);
+                live.stream().filter(entry -> !known.contains(MessageKey.of(entry, 0))).forEach(this::insert);
+                warmed = true;
+                log.info("Chat history cache for room {} warmed with {} messages", room, size);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void add(Entry entry) {
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                insert(entry);
+                evictExpired(toMicros(LocalDateTime.now()) - windowMicros);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<ChatMessageDTO> getMessagesSince(LocalDateTime since, int limit) {
+            if (!warmed) {
+                return null;
+            }
+            long sinceMicros = toMicros(since);
+            lock.readLock().lock();
+            try {
+                if (sinceMicros < coveredSinceMicros) {
+                    return null;
+                }
+                return collectSince(firstAfter(sinceMicros), limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<ChatMessageDTO> getMessagesAfter(long afterId, int limit) {
+            if (!warmed) {
+                return null;
+            }
+            resolveIds();
+            lock.readLock().lock();
+            try {
+                // Walk back from the newest entry to the cursor, then a little further
+                // in case ids were committed and delivered out of order
+                int from = size;
+                int pos = size - 1;
+                int slack = REORDER_WINDOW;
+                while (pos >= 0 && slack > 0) {
+                    long id = at(pos).id();
+                    if (id > afterId) {
+                        from = pos;
+                    } else if (id != 0) {
+                        slack--;
+                    }
+                    pos--;
+                }
+                if (pos < 0 && slack == REORDER_WINDOW && size > 0) {
+                    // Never reached the cursor: it is older than the cache
+                    return null;
+                }
+                return collectAfter(from, limit, afterId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<ChatMessageDTO> getLatestMessages(int limit) {
+            if (!warmed) {
+                return null;
+            }
+            resolveIds();
+            lock.readLock().lock();
+            try {
+                // Scan back past the limit-th entry with an id, for ids that are out of order
+                List<Entry> matches = new ArrayList<>(limit);
+                int past = 0;
+                for (int i = size - 1; i >= 0 && past < REORDER_WINDOW; i--) {
+                    Entry entry = at(i);
+                    if (entry.id() != 0) {
+                        matches.add(entry);
+                    }
+                    if (matches.size() >= limit) {
+                        past++;
+                    }
+                }
+                matches.sort(BY_ID);
+                return toDTOs(matches.subList(Math.max(0, matches.size() - limit), matches.size()));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Every entry from a logical index on, in ring (timestamp) order
+         */
+        private List<ChatMessageDTO> collectSince(int from, int limit) {
+            List<ChatMessageDTO> result = new ArrayList<>(Math.min(limit, size - from));
+            for (int i = from; i < size && result.size() < limit; i++) {
+                result.add(toDTO(at(i)));
+            }
+            return result;
+        }
+
+        /**
+         * The limit lowest ids greater than the cursor from a logical index on, in id order.
+         * Cutting the page in timestamp order instead would let the client's cursor (the
+         * highest id it has seen) jump over a lower id further down the ring.
+         */
+        private List<ChatMessageDTO> collectAfter(int from, int limit, long afterId) {
+            List<Entry> matches = new ArrayList<>(Math.min(limit, size - from));
+            int past = 0;
+            for (int i = from; i < size && past < REORDER_WINDOW; i++) {
+                Entry entry = at(i);
+                if (entry.id() > afterId) {
+                    matches.add(entry);
+                }
+                if (matches.size() >= limit) {
+                    past++;
+                }
+            }
+            matches.sort(BY_ID);
+            return toDTOs(matches.subList(0, Math.min(limit, matches.size())));
+        }
+
+        /**
+         * Give write-behind messages, received without an id, the id the database assigned
+         * them, reading the room's rows from the oldest unresolved message on. Runs at most
+         * once per id refresh interval and by one caller at a time; the others answer from
+         * what is resolved so far, which is what the database would answer too. Messages
+         * still unresolved after UNRESOLVED_TIMEOUT_MICROS are dropped: their write failed.
+         */
+        private void resolveIds() {
+            long now = System.nanoTime();
+            if (unresolved == 0 || now - resolvedAtNanos < idRefreshNanos || !resolving.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                resolvedAtNanos = now;
+                long oldestMicros;
+                int pending;
+                lock.readLock().lock();
+                try {
+                    int pos = oldestUnresolved();
+                    if (pos == size) {
+                        return;
+                    }
+                    oldestMicros = at(pos).timestampMicros();
+                    pending = size - pos;
+                } finally {
+                    lock.readLock().unlock();
+                }
+
+                List<ChatMessage> rows = chatMessageRepository.findMessagesSince(
+                    room, fromMicros(oldestMicros - 1), PageRequest.of(0, pending + REORDER_WINDOW));
+
+                lock.writeLock().lock();
+                try {
+                    assignIds(rows);
+                    long cutoffMicros = toMicros(LocalDateTime.now()) - UNRESOLVED_TIMEOUT_MICROS;
+                    if (unresolved > 0 && oldestMicros < cutoffMicros) {
+                        dropUnresolvedBefore(cutoffMicros);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                resolving.set(false);
+            }
+        }
+
+        /**
+         * Give the ring's slots back; messages still arriving are ignored
+         */
+        void close() {
+            lock.writeLock().lock();
+            try {
+                closed = true;
+                release(ring.length);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // --- ring buffer internals (callers hold the write lock) ---
+
+        private void insert(Entry entry) {
+            if (size == ring.length && !grow()) {
+                // Full: drop the oldest message and shrink the covered range accordingly
+                Entry oldest = ring[head];
+                if (entry.timestampMicros() <= oldest.timestampMicros()) {
+                    coveredSinceMicros = Math.max(coveredSinceMicros, entry.timestampMicros());
+                    return;
+                }
+                removeHead();
+                coveredSinceMicros = Math.max(coveredSinceMicros, oldest.timestampMicros());
+            }
+
+            // Messages from other instances may arrive slightly out of order; shift them into place
+            int pos = size;
+            while (pos > 0 && at(pos - 1).timestampMicros() > entry.timestampMicros()) {
+                ring[index(pos)] = at(pos - 1);
+                pos--;
+            }
+            ring[index(pos)] = entry;
+            size++;
+            if (entry.id() == 0) {
+                unresolved++;
+            }
+        }
+
+        /**
+         * Double the ring, within max-messages and the slots still free
+         */
+        private boolean grow() {
+            int capacity = Math.min(ring.length * 2, maxMessages);
+            if (capacity <= ring.length || !reserve(capacity - ring.length)) {
+                return false;
+            }
+            Entry[] grown = new Entry[capacity];
+            for (int i = 0; i < size; i++) {
+                grown[i] = at(i);
+            }
+            ring = grown;
+            head = 0;
+            return true;
+        }
+
+        private void evictExpired(long cutoffMicros) {
+            while (size > 0 && ring[head].timestampMicros() <= cutoffMicros) {
+                removeHead();
+            }
+        }
+
+        private void removeHead() {
+            if (ring[head].id() == 0) {
+                unresolved--;
+            }
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+
+        /**
+         * Logical index of the oldest entry without an id (unresolved ones are recent,
+         * so the walk starts from the newest entry)
+         */
+        private int oldestUnresolved() {
+            int oldest = size;
+            int seen = 0;
+            for (int i = size - 1; i >= 0 && seen < unresolved; i--) {
+                if (at(i).id() == 0) {
+                    oldest = i;
+                    seen++;
+                }
+            }
+            return oldest;
+        }
+
+        /**
+         * Set the ids of unresolved entries from their rows, matched by username and timestamp
+         * (the database may round the last microsecond)
+         */
+        private void assignIds(List<ChatMessage> rows) {
+            Map<Pending, ArrayDeque<Integer>> pending = new HashMap<>();
+            for (int i = oldestUnresolved(); i < size; i++) {
+                Entry entry = at(i);
+                if (entry.id() == 0) {
+                    pending.computeIfAbsent(new Pending(entry.username(), entry.timestampMicros()),
+                        key -> new ArrayDeque<>()).add(i);
+                }
+            }
+            for (ChatMessage row : rows) {
+                long micros = toMicros(row.getTimestamp());
+                Integer pos = take(pending, new Pending(row.getUsername(), micros));
+                if (pos == null) {
+                    pos = take(pending, new Pending(row.getUsername(), micros - 1));
+                }
+                if (pos != null) {
+                    Entry entry = at(pos);
+                    ring[index(pos)] = new Entry(row.getId(), entry.timestampMicros(), entry.username(),
+                        entry.content(), entry.type(), entry.room());
+                    unresolved--;
+                }
+            }
+        }
+
+        private static Integer take(Map<Pending, ArrayDeque<Integer>> pending, Pending key) {
+            ArrayDeque<Integer> positions = pending.get(key);
+            return positions != null ? positions.poll() : null;
+        }
+
+        private void dropUnresolvedBefore(long cutoffMicros) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                Entry entry = at(i);
+                if (entry.id() == 0 && entry.timestampMicros() < cutoffMicros) {
+                    unresolved--;
+                } else {
+                    ring[index(kept++)] = entry;
+                }
+            }
+            for (int i = kept; i < size; i++) {
+                ring[index(i)] = null;
+            }
+            size = kept;
+        }
+
+        private List<Entry> drain() {
+            List<Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(at(i));
+                ring[index(i)] = null;
+            }
+            head = 0;
+            size = 0;
+            unresolved = 0;
+            return entries;
+        }
+
+        /**
+         * Logical index of the first entry strictly newer than the given instant
+         */
+        private int firstAfter(long micros) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (at(mid).timestampMicros() <= micros) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private Entry at(int logicalIndex) {
+            return ring[index(logicalIndex)];
+        }
+
+        private int index(int logicalIndex) {
+            return (head + logicalIndex) % ring.length;
+        }
+    }
+
+    // --- conversions ---
+
+    private boolean reserve(int slots) {
+        long reserved;
+        do {
+            reserved = reservedSlots.get();
+            if (reserved + slots > maxTotalMessages) {
+                return false;
+            }
+        } while (!reservedSlots.compareAndSet(reserved, reserved + slots));
+        return true;
+    }
+
+    private void release(int slots) {
+        reservedSlots.addAndGet(-slots);
+    }
+
+    private String canonicalUsername(String username) {
+        if (usernames.size() > MAX_CANONICAL_USERNAMES) {
+            usernames.clear();
+        }
+        return usernames.computeIfAbsent(username, name -> name);
+    }
+
+    private Entry toEntry(ChatMessage message) {
+        return new Entry(
+            message.getId() != null ? message.getId() : 0,
+            toMicros(message.getTimestamp()),
+            canonicalUsername(message.getUsername()),
+            message.getContent(),
+            message.getType(),
+            message.getRoom()
+        );
+    }
+
+    private Entry toEntry(ChatMessageDTO message) {
+        return new Entry(
+            message.getId() != null ? message.getId() : 0,
+            toMicros(message.getTimestamp()),
+            canonicalUsername(message.getUsername()),
+            message.getContent(),
+            message.getType(),
+            message.getRoom()
+        );
+    }
+
+    private static List<ChatMessageDTO> toDTOs(List<Entry> entries) {
+        List<ChatMessageDTO> result = new ArrayList<>(entries.size());
+        entries.forEach(entry -> result.add(toDTO(entry)));
+        return result;
+    }
+
+    private static ChatMessageDTO toDTO(Entry entry) {
+        return new ChatMessageDTO(
+            entry.id() != 0 ? entry.id() : null,
+            entry.username(),
+            entry.content(),
+            entry.type(),
+            fromMicros(entry.timestampMicros()),
+            entry.room()
+        );
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+            ZoneOffset.UTC
+        );
+    }
+
+    /**
+     * Compact cache slot (id 0 = not persisted yet)
+     */
+    private record Entry(long id, long timestampMicros, String username, String content,
+                         ChatMessage.MessageType type, String room) {
+    }
+
+    /**
+     * Identity of a message that does not depend on its id (the room is that of the ring)
+     */
+    private record MessageKey(String username, long timestampMicros, String content) {
+
+        static MessageKey of(Entry entry, long offsetMicros) {
+            return new MessageKey(entry.username(), entry.timestampMicros() + offsetMicros, entry.content());
+        }
+    }
+
+    /**
+     * Key of an unresolved entry when matching database rows
+     */
+    private record Pending(String username, long timestampMicros) {
+    }
+}
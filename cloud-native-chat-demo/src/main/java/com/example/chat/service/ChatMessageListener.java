@@ -1,13 +1,27 @@
 package com.example.chat.service;
 
+import com.example.chat.messaging.ChatMessageConverter;
 import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.ChatRoom;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -15,15 +29,121 @@ import org.springframework.stereotype.Service;
 public class ChatMessageListener {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final MessageConverter chatMessageConverter;
+    private final Optional<ChatHistoryCache> historyCache;
+    private final LongPollService longPollService;
+    private final ChatPipelineMetrics metrics;
+    private final RoomSequenceTracker sequenceTracker;
+
+    @Value("${chat.messaging.pass-through.enabled:true}")
+    private boolean passThrough;
+
+    /**
+     * Listen for messages from RabbitMQ and broadcast via WebSocket to each message's room
+     * Receives up to chat.messaging.consumer-batch.size messages per call
+     */
+    @RabbitListener(queues = "#{chatQueue.name}", containerFactory = "chatListenerContainerFactory")
+    public void receiveMessages(List<Message> deliveries) {
+        log.debug("Received {} message(s) from RabbitMQ", deliveries.size());
+        metrics.getMessagesReceived().increment(deliveries.size());
+        deliveries.forEach(delivery -> metrics.recordSince(metrics.getBrokerHopTimer(),
+            delivery.getMessageProperties().getHeader(ChatPipelineMetrics.PUBLISHED_AT_HEADER)));
+
+        List<Received> received = deliveries.stream().map(this::decode).toList();
+        List<ChatMessageDTO> messages = received.stream().map(Received::message).toList();
+
+        // Keep the local history cache and poll validators up to date
+        historyCache.ifPresent(cache -> messages.forEach(cache::add));
+        messages.forEach(message -> sequenceTracker.onMessage(message.getRoom()));
+
+        // Broadcast messages to all WebSocket subscribers
+        try {
+            metrics.getBroadcastTimer().record(() -> broadcast(received));
+            metrics.getMessagesBroadcast().increment(messages.size());
+        } catch (RuntimeException e) {
+            metrics.failed("broadcast");
+            throw e;
+        }
+        deliveries.forEach(delivery -> metrics.recordSince(metrics.getEndToEndTimer(),
+            delivery.getMessageProperties().getHeader(ChatPipelineMetrics.ACCEPTED_AT_HEADER)));
+
+        // Wake parked long-poll clients
+        messages.forEach(longPollService::onMessage);
+    }
 
     /**
-     * Listen for messages from RabbitMQ and broadcast via WebSocket
+     * Decode a delivery for the cache and long-polls, keeping its JSON body when it can be
+     * forwarded to STOMP clients as is
      */
-    @RabbitListener(queues = "${chat.queue.name}")
-    public void receiveMessage(ChatMessageDTO message) {
-        log.info("Received message from RabbitMQ: {} - {}", message.getUsername(), message.getContent());
+    private Received decode(Message delivery) {
+        ChatMessageDTO message = (ChatMessageDTO) chatMessageConverter.fromMessage(delivery);
+        String room = message.getRoom();
+        // Messages from instances without rooms belong to the default room
+        message.setRoom(ChatRoom.normalize(room));
+        byte[] json = passThrough && message.getRoom().equals(room)
+            ? ChatMessageConverter.chatJsonBody(delivery)
+            : null;
+        return new Received(message, json);
+    }
 
-        // Broadcast message to all WebSocket subscribers
-        messagingTemplate.convertAndSend("/topic/messages", message);
+    /**
+     * Broadcast a batch as one STOMP frame per room: a single message as an object,
+     * several messages as an array (chat.js accepts both).
+     * JSON-encoded messages are forwarded with the bytes the publisher wrote, shared by
+     * every subscriber's frame; binary messages, or a room's batch containing one, are
+     * converted from the decoded messages.
+     */
+    private void broadcast(List<Received> received) {
+        if (received.size() == 1) {
+            send(received.getFirst().message().getRoom(), received);
+            return;
+        }
+        Map<String, List<Received>> byRoom = new LinkedHashMap<>();
+        for (Received message : received) {
+            byRoom.computeIfAbsent(message.message().getRoom(), room -> new ArrayList<>()).add(message);
+        }
+        byRoom.forEach(this::send);
+    }
+
+    private void send(String room, List<Received> received) {
+        String destination = ChatRoom.destination(room);
+        if (received.stream().allMatch(message -> message.json() != null)) {
+            sendJson(destination, received.size() == 1 ? received.getFirst().json() : jsonArray(received));
+            metrics.getMessagesPassedThrough().increment(received.size());
+        } else if (received.size() == 1) {
+            messagingTemplate.convertAndSend(destination, received.getFirst().message());
+        } else {
+            messagingTemplate.convertAndSend(destination, received.stream().map(Received::message).toList());
+        }
+    }
+
+    private void sendJson(String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+
+    private static byte[] jsonArray(List<Received> received) {
+        int size = received.size() + 1;
+        for (Received message : received) {
+            size += message.json().length;
+        }
+        ByteArrayOutputStream array = new ByteArrayOutputStream(size);
+        array.write('[');
+        for (int i = 0; i < received.size(); i++) {
+            if (i > 0) {
+                array.write(',');
+            }
+            array.writeBytes(received.get(i).json());
+        }
+        array.write(']');
+        return array.toByteArray();
+    }
+
+    /**
+     * A decoded message and, when it can be passed through, its JSON body
+     */
+    private record Received(ChatMessageDTO message, byte[] json) {
     }
 }
@@ -0,0 +1,186 @@
+package com.example.chat.service;
+
+import com.example.chat.model.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for chat messages.
+ *
+ * Messages are appended to a bounded in-memory queue and a single background
+ * writer flushes them as JDBC batches, either when the batch is full or when
+ * the flush interval elapses. Combined with rewriteBatchedStatements=true the
+ * MySQL driver turns each batch into a multi-row INSERT, which Hibernate cannot
+ * do for IDENTITY keys.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.persistence.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class ChatMessageWriteBehindService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO chat_messages (username, content, timestamp, type, room) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<ChatMessage> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+    private final Counter backpressureCounter;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public ChatMessageWriteBehindService(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${chat.persistence.write-behind.capacity:10000}") int capacity,
+            @Value("${chat.persistence.write-behind.batch-size:500}") int batchSize,
+            @Value("${chat.persistence.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${chat.persistence.write-behind.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        Gauge.builder("chat.persistence.write-behind.queue.depth", queue, BlockingQueue::size)
+            .description("Messages waiting to be written to the database")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.persistence.write-behind.flush")
+            .description("Time taken to write one batch to the database")
+            .register(meterRegistry);
+        this.flushedCounter = Counter.builder("chat.persistence.write-behind.flushed")
+            .description("Messages written by the background writer")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("chat.persistence.write-behind.failed")
+            .description("Messages dropped because their batch could not be written")
+            .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("chat.persistence.write-behind.backpressure")
+            .description("Messages written synchronously because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "chat-write-behind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Write-behind persistence enabled (capacity={}, batchSize={}, flushIntervalMs={})",
+            queue.remainingCapacity(), batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Queue a message for persistence. Blocks for up to the offer timeout when the
+     * queue is full; if there is still no room the message is written on the caller's
+     * thread so that producers slow down instead of losing messages.
+     */
+    public void enqueue(ChatMessage message) {
+        try {
+            if (queue.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        backpressureCounter.increment();
+        writeBatch(List.of(message));
+    }
+
+    /**
+     * Stop the writer thread and flush everything still queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        List<ChatMessage> remaining = new ArrayList<>(queue.size());
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            writeBatch(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+        log.info("Write-behind persistence stopped, flushed {} remaining messages", remaining.size());
+    }
+
+    private void runWriter() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChatMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Wait up to one flush interval for the batch to fill up
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    ChatMessage next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; pending messages are flushed by shutdown()
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<ChatMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, message) -> {
+                ps.setString(1, message.getUsername());
+                ps.setString(2, message.getContent());
+                ps.setTimestamp(3, Timestamp.valueOf(message.getTimestamp()));
+                ps.setString(4, message.getType().name());
+                ps.setString(5, message.getRoom());
+            }));
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write batch of {} chat messages", batch.size(), e);
+        }
+    }
+}
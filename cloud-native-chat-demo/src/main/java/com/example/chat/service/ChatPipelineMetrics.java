@@ -0,0 +1,88 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for each stage a chat message goes through, from the send call to the STOMP broadcast.
+ *
+ * The broker hop and end-to-end timers are computed from epoch-millis headers set
+ * by the publishing instance, so across instances they include any clock skew.
+ * With publish batching the headers of a batch come from its first message.
+ */
+@Component
+@Getter
+public class ChatPipelineMetrics {
+
+    // AMQP headers carrying the time the message was accepted and published
+    public static final String ACCEPTED_AT_HEADER = "x-chat-accepted-at";
+    public static final String PUBLISHED_AT_HEADER = "x-chat-published-at";
+
+    private final Timer persistTimer;
+    private final Timer publishTimer;
+    private final Timer brokerHopTimer;
+    private final Timer broadcastTimer;
+    private final Timer endToEndTimer;
+    private final Counter messagesPublished;
+    private final Counter bytesPublished;
+    private final Counter messagesReceived;
+    private final Counter messagesBroadcast;
+    private final Counter messagesPassedThrough;
+    private final MeterRegistry meterRegistry;
+
+    public ChatPipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.persistTimer = stageTimer("chat.pipeline.persist", "Saving a message before it is published");
+        this.publishTimer = stageTimer("chat.pipeline.publish", "Publishing a message to RabbitMQ");
+        this.brokerHopTimer = stageTimer("chat.pipeline.broker",
+            "From publish to delivery to the listener of this instance");
+        this.broadcastTimer = stageTimer("chat.pipeline.broadcast", "Broadcasting a listener batch to STOMP subscribers");
+        this.endToEndTimer = stageTimer("chat.pipeline.end-to-end",
+            "From accepting a message to broadcasting it on this instance");
+        this.messagesPublished = Counter.builder("chat.messages.published")
+            .description("Chat messages published to RabbitMQ")
+            .register(meterRegistry);
+        this.bytesPublished = Counter.builder("chat.messages.published.bytes")
+            .description("Encoded size of published chat messages")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.messagesReceived = Counter.builder("chat.messages.received")
+            .description("Chat messages delivered by RabbitMQ to this instance")
+            .register(meterRegistry);
+        this.messagesBroadcast = Counter.builder("chat.messages.broadcast")
+            .description("Chat messages broadcast to STOMP subscribers")
+            .register(meterRegistry);
+        this.messagesPassedThrough = Counter.builder("chat.messages.broadcast.pass-through")
+            .description("Chat messages broadcast with their AMQP JSON body, without re-serialization")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record the time since an epoch-millis header value, ignoring missing headers
+     */
+    public void recordSince(Timer timer, Object epochMillis) {
+        if (epochMillis instanceof Number start) {
+            timer.record(Math.max(0, System.currentTimeMillis() - start.longValue()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void failed(String stage) {
+        Counter.builder("chat.pipeline.failures")
+            .description("Chat messages that failed in a pipeline stage")
+            .tag("stage", stage)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private Timer stageTimer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
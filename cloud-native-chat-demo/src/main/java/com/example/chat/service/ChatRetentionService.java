@@ -0,0 +1,135 @@
+package com.example.chat.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retention for chat_messages.
+ *
+ * When the table is range-partitioned by hour (created that way by the database
+ * initializer), expired hours are removed with DROP PARTITION and future hours
+ * are split off the catch-all partition ahead of time; both are metadata
+ * operations whose cost does not depend on the number of messages.
+ * Otherwise old rows are deleted in small, separately committed chunks with a
+ * pause in between, so no single long transaction blocks concurrent inserts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatRetentionService {
+
+    // Hourly partitions are named after the hour they start with, e.g. p2025011613
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMddHH");
+    private static final DateTimeFormatter PARTITION_START = DateTimeFormatter.ofPattern("'p'yyyyMMddHHmm");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CATCH_ALL_PARTITION = "pmax";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.retention.partition.lookahead-hours:6}")
+    private int lookaheadHours;
+
+    @Value("${chat.retention.delete.chunk-size:5000}")
+    private int deleteChunkSize;
+
+    @Value("${chat.retention.delete.pause-ms:100}")
+    private long deletePauseMs;
+
+    /**
+     * Remove every message older than the cutoff
+     */
+    public void purgeOlderThan(LocalDateTime cutoff) {
+        try {
+            List<String> partitions = listPartitions();
+            if (partitions.isEmpty()) {
+                deleteInChunks(cutoff);
+            } else {
+                rotatePartitions(partitions, cutoff);
+            }
+        } catch (DataAccessException e) {
+            // Another instance may be rotating at the same time; the next run catches up
+            log.warn("Retention run failed: {}", e.getMessage());
+        }
+    }
+
+    private List<String> listPartitions() {
+        String sql = """
+            SELECT partition_name
+            FROM information_schema.partitions
+            WHERE table_schema = DATABASE()
+            AND table_name = 'chat_messages'
+            AND partition_name IS NOT NULL
+            ORDER BY partition_ordinal_position
+            """;
+        return jdbcTemplate.queryForList(sql, String.class);
+    }
+
+    private void rotatePartitions(List<String> partitions, LocalDateTime cutoff) {
+        // Drop hours that ended before the cutoff
+        List<String> expired = new ArrayList<>();
+        LocalDateTime newestStart = null;
+        for (String name : partitions) {
+            if (CATCH_ALL_PARTITION.equals(name)) {
+                continue;
+            }
+            LocalDateTime start = LocalDateTime.parse(name + "00", PARTITION_START);
+            if (!start.plusHours(1).isAfter(cutoff)) {
+                expired.add(name);
+            }
+            newestStart = start;
+        }
+
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE chat_messages DROP PARTITION " + String.join(", ", expired));
+            log.info("Dropped {} expired chat_messages partitions ({} .. {})",
+                expired.size(), expired.getFirst(), expired.getLast());
+        }
+
+        // Create partitions for the upcoming hours by splitting the catch-all partition
+        LocalDateTime horizon = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(lookaheadHours);
+        LocalDateTime next = newestStart != null
+            ? newestStart.plusHours(1)
+            : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        List<String> definitions = new ArrayList<>();
+        for (; !next.isAfter(horizon); next = next.plusHours(1)) {
+            definitions.add("PARTITION " + next.format(PARTITION_NAME)
+                + " VALUES LESS THAN ('" + next.plusHours(1).format(PARTITION_BOUND) + "')");
+        }
+        if (!definitions.isEmpty()) {
+            definitions.add("PARTITION " + CATCH_ALL_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE chat_messages REORGANIZE PARTITION " + CATCH_ALL_PARTITION
+                + " INTO (" + String.join(", ", definitions) + ")");
+            log.info("Created {} chat_messages partitions up to {}", definitions.size() - 1, horizon);
+        }
+    }
+
+    private void deleteInChunks(LocalDateTime cutoff) {
+        // Each statement commits on its own (no surrounding transaction)
+        String sql = "DELETE FROM chat_messages WHERE timestamp < ? ORDER BY timestamp LIMIT ?";
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, cutoff, deleteChunkSize);
+            total += deleted;
+            if (deleted == deleteChunkSize) {
+                try {
+                    Thread.sleep(deletePauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (deleted == deleteChunkSize);
+        log.info("Deleted {} messages older than {} in chunks of {}", total, cutoff, deleteChunkSize);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Binds this instance's queue only to the rooms it has subscribers for.
+ *
+ * Interest in a room is reference counted: every STOMP subscription to
+ * /topic/rooms/{room} and every parked long-poll request holds one reference,
+ * and a plain poll leases the room for the unbind delay without holding one, so the
+ * sequence tracker can validate the room's polls.
+ * The first reference binds chat.room.{room} to the instance queue and opens the
+ * room in the history cache and the sequence tracker; when the last one goes away
+ * the binding is removed after chat.rooms.unbind-delay-ms, so a quick reload does
+ * not churn bindings. At most chat.rooms.max-bound rooms are bound at a time;
+ * subscriptions and long-polls for further rooms are refused. The instance queue is auto-delete, so the bindings are
+ * declared again whenever the connection to RabbitMQ is re-established.
+ * Reference counts change under the instance monitor, but the broker calls run outside it under
+ * a lock of their room only: a slow or reconnecting broker delays the callers of the room being
+ * bound or unbound, not every room on the instance (and does not pin virtual threads).
+ * In shared-queue mode the queue is bound to every room statically and this is a no-op.
+ */
+@Service
+@Slf4j
+public class ChatRoomService {
+
+    private final AmqpAdmin amqpAdmin;
+    private final Queue chatQueue;
+    private final TopicExchange chatExchange;
+    private final Optional<ChatHistoryCache> historyCache;
+    private final RoomSequenceTracker sequenceTracker;
+    private final TaskScheduler taskScheduler;
+    private final String routingKeyPrefix;
+    private final boolean perInstanceQueue;
+    private final Duration unbindDelay;
+    private final int maxBound;
+
+    // Guarded by this; every room in the map holds one of the max-bound slots
+    private final Map<String, Interest> rooms = new HashMap<>();
+    // sessionId -> subscriptionId -> room
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+
+    public ChatRoomService(
+            AmqpAdmin amqpAdmin,
+            Queue chatQueue,
+            TopicExchange chatExchange,
+            Optional<ChatHistoryCache> historyCache,
+            RoomSequenceTracker sequenceTracker,
+            TaskScheduler taskScheduler,
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${chat.routing.key-prefix:chat.room.}") String routingKeyPrefix,
+            @Value("${chat.queue.per-instance:true}") boolean perInstanceQueue,
+            @Value("${chat.rooms.unbind-delay-ms:30000}") long unbindDelayMs,
+            @Value("${chat.rooms.max-bound:1000}") int maxBound) {
+        this.amqpAdmin = amqpAdmin;
+        this.chatQueue = chatQueue;
+        this.chatExchange = chatExchange;
+        this.historyCache = historyCache;
+        this.sequenceTracker = sequenceTracker;
+        this.taskScheduler = taskScheduler;
+        this.routingKeyPrefix = routingKeyPrefix;
+        this.perInstanceQueue = perInstanceQueue;
+        this.unbindDelay = Duration.ofMillis(unbindDelayMs);
+        this.maxBound = maxBound;
+
+        if (perInstanceQueue) {
+            connectionFactory.addConnectionListener(new ConnectionListener() {
+                @Override
+                public void onCreate(Connection connection) {
+                    // Runs after RabbitAdmin's listener, which has declared the queue again by then
+                    redeclareBindings();
+                }
+
+                @Override
+                public void onClose(Connection connection) {
+                    // Messages published while the queue is gone are never seen here
+                    sequenceTracker.closeAll();
+                }
+            });
+        }
+
+        Gauge.builder("chat.rooms.bound", this, ChatRoomService::getBoundRoomCount)
+            .description("Rooms the instance queue is bound to")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Register interest in a room, binding it if this is the first reference. Returns false,
+     * without taking a reference, when the room would have to be bound but max-bound rooms already are.
+     */
+    public boolean tryAcquire(String room) {
+        if (!perInstanceQueue) {
+            return true;
+        }
+        Interest interest;
+        synchronized (this) {
+            interest = rooms.get(room);
+            if (interest == null) {
+                if (rooms.size() >= maxBound) {
+                    return false;
+                }
+                interest = new Interest();
+                rooms.put(room, interest);
+            }
+            interest.references++;
+            if (interest.pendingUnbind != null) {
+                interest.pendingUnbind.cancel(false);
+                interest.pendingUnbind = null;
+            }
+        }
+        bind(room, interest);
+        return true;
+    }
+
+    /**
+     * Keep a room bound for the unbind delay without holding a reference (plain polls),
+     * binding it if a slot is free. Beyond max-bound an unbound room stays unbound.
+     */
+    public void lease(String room) {
+        if (!perInstanceQueue) {
+            return;
+        }
+        Interest interest;
+        synchronized (this) {
+            interest = rooms.get(room);
+            if (interest == null) {
+                if (rooms.size() >= maxBound) {
+                    return;
+                }
+                interest = new Interest();
+                rooms.put(room, interest);
+            }
+            interest.keepUntil = Instant.now().plus(unbindDelay);
+            if (interest.references == 0 && interest.pendingUnbind == null) {
+                interest.pendingUnbind = taskScheduler.schedule(() -> unbindIfIdle(room), interest.keepUntil);
+            }
+        }
+        bind(room, interest);
+    }
+
+    /**
+     * Drop one reference; the room is unbound once nobody has needed it for the unbind delay
+     */
+    public void release(String room) {
+        if (!perInstanceQueue) {
+            return;
+        }
+        synchronized (this) {
+            Interest interest = rooms.get(room);
+            if (interest == null || interest.references == 0) {
+                return;
+            }
+            if (--interest.references == 0) {
+                interest.keepUntil = Instant.now().plus(unbindDelay);
+                interest.pendingUnbind = taskScheduler.schedule(() -> unbindIfIdle(room), interest.keepUntil);
+            }
+        }
+    }
+
+    public synchronized int getBoundRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Track a STOMP subscription to a room (called from the inbound channel, before the broker
+     * sees the SUBSCRIBE); returns false when the room cannot be bound and the subscription must be refused
+     */
+    public boolean subscribe(String sessionId, String subscriptionId, String room) {
+        if (!tryAcquire(room)) {
+            return false;
+        }
+        String previous = subscriptions
+            .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+            .put(subscriptionId, room);
+        if (previous != null) {
+            release(previous);
+        }
+        return true;
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> sessionSubscriptions = subscriptions.get(accessor.getSessionId());
+        if (sessionSubscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String room = sessionSubscriptions.remove(accessor.getSubscriptionId());
+        if (room != null) {
+            release(room);
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> sessionSubscriptions = subscriptions.remove(event.getSessionId());
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Declare the room's binding unless it is in place. Waits only for broker calls of this room,
+     * such as an unbind that is still running.
+     */
+    private void bind(String room, Interest interest) {
+        interest.lock.lock();
+        try {
+            synchronized (this) {
+                // A lease can run out before its bind gets here; the room is gone then
+                if (rooms.get(room) != interest) {
+                    return;
+                }
+            }
+            if (interest.bound) {
+                return;
+            }
+            if (declare(room)) {
+                sequenceTracker.open(room);
+            }
+            interest.bound = true;
+            // Warms in the background; live messages already reach the cache through the new binding
+            historyCache.ifPresent(cache -> cache.open(room));
+        } finally {
+            interest.lock.unlock();
+        }
+    }
+
+    private void unbindIfIdle(String room) {
+        Interest interest;
+        synchronized (this) {
+            interest = rooms.get(room);
+        }
+        if (interest == null) {
+            return;
+        }
+        boolean unbound = false;
+        interest.lock.lock();
+        try {
+            synchronized (this) {
+                if (rooms.get(room) != interest || interest.references > 0) {
+                    return;
+                }
+                if (interest.keepUntil != null && Instant.now().isBefore(interest.keepUntil)) {
+                    // Polled or released again since; check back when that runs out
+                    interest.pendingUnbind = taskScheduler.schedule(() -> unbindIfIdle(room), interest.keepUntil);
+                    return;
+                }
+                interest.pendingUnbind = null;
+            }
+            if (interest.bound) {
+                // Close first so a late message cannot be cached or counted without a binding to keep it current
+                sequenceTracker.close(room);
+                historyCache.ifPresent(cache -> cache.close(room));
+                undeclare(room);
+                interest.bound = false;
+                unbound = true;
+            }
+            synchronized (this) {
+                // Acquired meanwhile: that caller waits for this lock in bind() and declares the binding again
+                if (interest.references == 0) {
+                    rooms.remove(room);
+                }
+            }
+        } finally {
+            interest.lock.unlock();
+        }
+        if (unbound) {
+            log.debug("Unbound idle room {}", room);
+        }
+    }
+
+    private void redeclareBindings() {
+        Map<String, Interest> known;
+        synchronized (this) {
+            known = new HashMap<>(rooms);
+        }
+        if (known.isEmpty()) {
+            return;
+        }
+        log.info("Re-declaring bindings for {} room(s) after reconnect", known.size());
+        known.forEach((room, interest) -> {
+            interest.lock.lock();
+            try {
+                if (interest.bound && declare(room)) {
+                    sequenceTracker.open(room);
+                }
+            } finally {
+                interest.lock.unlock();
+            }
+        });
+    }
+
+    private boolean declare(String room) {
+        try {
+            amqpAdmin.declareBinding(binding(room));
+            log.debug("Bound room {} to {}", room, chatQueue.getName());
+            return true;
+        } catch (AmqpException e) {
+            // Declared again when the connection comes back
+            log.warn("Could not bind room {}: {}", room, e.getMessage());
+            return false;
+        }
+    }
+
+    private void undeclare(String room) {
+        try {
+            amqpAdmin.removeBinding(binding(room));
+        } catch (AmqpException e) {
+            log.warn("Could not unbind room {}: {}", room, e.getMessage());
+        }
+    }
+
+    private Binding binding(String room) {
+        return new Binding(chatQueue.getName(), Binding.DestinationType.QUEUE,
+            chatExchange.getName(), routingKeyPrefix + room, null);
+    }
+
+    private static final class Interest {
+        // Guarded by ChatRoomService.this
+        int references;
+        Instant keepUntil;
+        ScheduledFuture<?> pendingUnbind;
+        // Held for the broker calls of this room, so an unbind can never overtake the bind after it
+        final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        boolean bound;
+    }
+}
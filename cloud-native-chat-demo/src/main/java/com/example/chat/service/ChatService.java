@@ -2,18 +2,24 @@ package com.example.chat.service;
 
 import com.example.chat.model.ChatMessage;
 import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.model.ChatRoom;
 import com.example.chat.repository.ChatMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.BatchingRabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,67 +29,175 @@ public class ChatService {
 
     private final ChatMessageRepository chatMessageRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final Optional<ChatMessageWriteBehindService> writeBehindService;
+    private final Optional<ChatHistoryCache> historyCache;
+    private final ChatRetentionService retentionService;
+    private final ChatPipelineMetrics metrics;
 
     @Value("${chat.exchange.name}")
     private String exchangeName;
 
-    @Value("${chat.routing.key}")
-    private String routingKey;
+    @Value("${chat.routing.key-prefix:chat.room.}")
+    private String routingKeyPrefix;
 
     @Value("${chat.history.retention.hours}")
     private int retentionHours;
 
+    @Value("${chat.history.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${chat.history.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${chat.messaging.publish-retries:2}")
+    private int publishRetries;
+
     /**
-     * Send a chat message via RabbitMQ
+     * Send a chat message via RabbitMQ, routed by its room (chat.room.<room>)
+     * In write-behind mode the message is queued for a batched insert instead of
+     * being saved before it is published.
      */
     public void sendMessage(ChatMessageDTO messageDTO) {
+        long acceptedAt = System.currentTimeMillis();
+        messageDTO.setRoom(ChatRoom.normalize(messageDTO.getRoom()));
+        String routingKey = routingKeyPrefix + messageDTO.getRoom();
+
         // Save to database
         ChatMessage entity = messageDTO.toEntity();
-        chatMessageRepository.save(entity);
+        try {
+            if (writeBehindService.isPresent()) {
+                writeBehindService.get().enqueue(entity);
+            } else {
+                // The generated id becomes the history cursor for polling clients
+                metrics.getPersistTimer().record(() -> messageDTO.setId(chatMessageRepository.save(entity).getId()));
+            }
+        } catch (RuntimeException e) {
+            metrics.failed("persist");
+            throw e;
+        }
+
+        log.debug("Sending message from {} via RabbitMQ", messageDTO.getUsername());
+
+        // Publish to RabbitMQ; the headers let the listeners time the broker hop and the whole pipeline
+        try {
+            metrics.getPublishTimer().record(() -> publish(messageDTO, routingKey, acceptedAt, 0));
+            metrics.getMessagesPublished().increment();
+        } catch (RuntimeException e) {
+            metrics.failed("publish");
+            throw e;
+        }
+    }
 
-        log.info("Sending message from {} via RabbitMQ", messageDTO.getUsername());
+    /**
+     * Publish a chat message with CorrelationData, so that a negative confirm names the
+     * message and it is published again, up to chat.messaging.publish-retries times.
+     * The batching template would send a correlated message on its own, outside any batch,
+     * so in publish-batch mode messages go uncorrelated and nacked batches are only counted.
+     */
+    private void publish(ChatMessageDTO messageDTO, String routingKey, long acceptedAt, int attempt) {
+        MessagePostProcessor headers = message -> {
+            message.getMessageProperties().setHeader(ChatPipelineMetrics.ACCEPTED_AT_HEADER, acceptedAt);
+            message.getMessageProperties().setHeader(ChatPipelineMetrics.PUBLISHED_AT_HEADER,
+                System.currentTimeMillis());
+            metrics.getBytesPublished().increment(message.getBody().length);
+            return message;
+        };
+        if (rabbitTemplate instanceof BatchingRabbitTemplate) {
+            rabbitTemplate.convertAndSend(exchangeName, routingKey, messageDTO, headers);
+            return;
+        }
 
-        // Publish to RabbitMQ
-        rabbitTemplate.convertAndSend(exchangeName, routingKey, messageDTO);
+        CorrelationData correlation = new CorrelationData();
+        // Off the connection thread that completes the confirm: the template must not be used there
+        correlation.getFuture().whenCompleteAsync((confirm, error) -> {
+            if (confirm == null || confirm.isAck()) {
+                return;
+            }
+            if (attempt >= publishRetries) {
+                log.error("Giving up on message {} of room {} after {} nacked publishes",
+                    correlation.getId(), messageDTO.getRoom(), attempt + 1);
+                metrics.failed("publish");
+                return;
+            }
+            log.warn("Publishing message {} of room {} again after a nack: {}",
+                correlation.getId(), messageDTO.getRoom(), confirm.getReason());
+            try {
+                publish(messageDTO, routingKey, acceptedAt, attempt + 1);
+            } catch (RuntimeException e) {
+                log.error("Could not publish message {} again", correlation.getId(), e);
+                metrics.failed("publish");
+            }
+        });
+        rabbitTemplate.convertAndSend(exchangeName, routingKey, messageDTO, headers, correlation);
     }
 
     /**
-     * Get recent chat history (last 24 hours)
+     * Get the latest page of a room's history, oldest first (initial /chat render)
      */
-    public List<ChatMessageDTO> getRecentMessages() {
-        LocalDateTime since = LocalDateTime.now().minusHours(retentionHours);
-        return chatMessageRepository.findMessagesSince(since)
+    public List<ChatMessageDTO> getLatestMessages(String room) {
+        if (historyCache.isPresent()) {
+            List<ChatMessageDTO> cached = historyCache.get().getLatestMessages(room, defaultPageSize);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<ChatMessageDTO> page = chatMessageRepository
+            .findPageBefore(room, Long.MAX_VALUE, PageRequest.of(0, defaultPageSize))
             .stream()
             .map(ChatMessageDTO::fromEntity)
             .collect(Collectors.toList());
+        Collections.reverse(page);
+        return page;
     }
 
     /**
-     * Get messages since a specific timestamp (for polling fallback)
+     * Get the next page of a room's messages after a message id (for polling fallback)
+     * The page size is capped so a client that is far behind cannot make the
+     * server load the whole retention window in one request.
      */
-    public List<ChatMessageDTO> getMessagesSince(LocalDateTime since) {
-        return chatMessageRepository.findMessagesSince(since)
+    public List<ChatMessageDTO> getMessagesAfter(String room, long afterId, int limit) {
+        int pageSize = clampPageSize(limit);
+        if (historyCache.isPresent()) {
+            List<ChatMessageDTO> cached = historyCache.get().getMessagesAfter(room, afterId, pageSize);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return chatMessageRepository.findPageAfter(room, afterId, PageRequest.of(0, pageSize))
             .stream()
             .map(ChatMessageDTO::fromEntity)
             .collect(Collectors.toList());
     }
 
     /**
-     * Get count of chat messages in the last 24 hours
+     * Get a room's messages since a specific timestamp, bounded to one page
+     * Kept for clients that still poll by timestamp; new clients use message ids.
      */
-    public long getChatMessageCount() {
-        LocalDateTime since = LocalDateTime.now().minusHours(retentionHours);
-        return chatMessageRepository.countChatMessagesSince(since);
+    public List<ChatMessageDTO> getMessagesSince(String room, LocalDateTime since) {
+        if (historyCache.isPresent()) {
+            List<ChatMessageDTO> cached = historyCache.get().getMessagesSince(room, since, maxPageSize);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return chatMessageRepository.findMessagesSince(room, since, PageRequest.of(0, maxPageSize))
+            .stream()
+            .map(ChatMessageDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    public int clampPageSize(int limit) {
+        return limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
     }
 
     /**
      * Scheduled cleanup of old messages (runs every hour)
+     * Drops expired partitions when the table is partitioned, otherwise deletes in chunks.
      */
     @Scheduled(fixedRate = 3600000) // Every hour
-    @Transactional
     public void cleanupOldMessages() {
         LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
         log.info("Cleaning up messages older than {}", cutoff);
-        chatMessageRepository.deleteMessagesOlderThan(cutoff);
+        retentionService.purgeOlderThan(cutoff);
     }
 }
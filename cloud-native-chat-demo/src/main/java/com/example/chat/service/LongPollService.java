@@ -0,0 +1,137 @@
+package com.example.chat.service;
+
+import com.example.chat.model.ChatMessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll transport for clients that cannot use WebSocket.
+ *
+ * A poll request is parked as a {@link DeferredResult} (Servlet async, no thread held)
+ * until {@link ChatMessageListener} delivers a message of its room after the
+ * client's cursor or the timeout passes. A parked request holds interest in its
+ * room so the instance stays bound to it while the client waits. Parked requests
+ * are kept per room, so a message only visits the requests of its own room.
+ * Beyond chat.longpoll.max-waiters parked requests, new ones are refused with
+ * 503 and a Retry-After header rather than answered at once, which would make
+ * the client come straight back.
+ */
+@Service
+@Slf4j
+public class LongPollService {
+
+    private final ChatService chatService;
+    private final ChatRoomService chatRoomService;
+    // room -> parked requests; a room's set is removed once it is empty
+    private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final long timeoutMs;
+    private final int maxWaiters;
+    private final long retryAfterSeconds;
+    private final Counter rejectedCounter;
+
+    public LongPollService(
+            ChatService chatService,
+            ChatRoomService chatRoomService,
+            MeterRegistry meterRegistry,
+            @Value("${chat.longpoll.timeout-ms:25000}") long timeoutMs,
+            @Value("${chat.longpoll.max-waiters:10000}") int maxWaiters,
+            @Value("${chat.longpoll.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.chatService = chatService;
+        this.chatRoomService = chatRoomService;
+        this.timeoutMs = timeoutMs;
+        this.maxWaiters = maxWaiters;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("chat.longpoll.waiting", waiterCount, AtomicInteger::get)
+            .description("Long-poll requests currently parked")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("chat.longpoll.rejected")
+            .description("Long-poll requests refused with 503 because too many were parked")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Wait for messages of a room with an id greater than the cursor.
+     * Completes immediately if there already are some, otherwise parks the request.
+     * When the instance is saturated the result is a 503 asking the client to retry later.
+     */
+    public DeferredResult<List<ChatMessageDTO>> await(String room, long afterId, int limit) {
+        DeferredResult<List<ChatMessageDTO>> result = new DeferredResult<>(timeoutMs, List.of());
+
+        if (waiterCount.get() >= maxWaiters || !chatRoomService.tryAcquire(room)) {
+            // Too many parked requests or bound rooms: an immediate answer would only bring the client
+            // straight back for another database read, so tell it when to return instead
+            rejectedCounter.increment();
+            result.setErrorResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build());
+            return result;
+        }
+
+        // Register before checking history so a message arriving in between is not missed
+        Waiter waiter = new Waiter(afterId, result);
+        // Added inside compute, so it cannot land in a set that is being removed as empty
+        waiters.compute(room, (key, roomWaiters) -> {
+            Set<Waiter> set = roomWaiters != null ? roomWaiters : ConcurrentHashMap.newKeySet();
+            set.add(waiter);
+            return set;
+        });
+        waiterCount.incrementAndGet();
+        result.onCompletion(() -> {
+            if (remove(room, waiter)) {
+                waiterCount.decrementAndGet();
+                chatRoomService.release(room);
+            }
+        });
+
+        List<ChatMessageDTO> pending = chatService.getMessagesAfter(room, afterId, limit);
+        if (!pending.isEmpty()) {
+            result.setResult(pending);
+        }
+        return result;
+    }
+
+    /**
+     * Wake every parked request of the message's room that has not seen it yet.
+     * Messages without an id (write-behind mode) wake everyone; the client
+     * de-duplicates them when they later arrive with their id.
+     */
+    public void onMessage(ChatMessageDTO message) {
+        Set<Waiter> roomWaiters = waiters.get(message.getRoom());
+        if (roomWaiters == null) {
+            return;
+        }
+        for (Waiter waiter : roomWaiters) {
+            if (message.getId() == null || message.getId() > waiter.afterId()) {
+                waiter.result().setResult(List.of(message));
+            }
+        }
+    }
+
+    private boolean remove(String room, Waiter waiter) {
+        Set<Waiter> roomWaiters = waiters.get(room);
+        if (roomWaiters == null || !roomWaiters.remove(waiter)) {
+            return false;
+        }
+        waiters.computeIfPresent(room, (key, set) -> set.isEmpty() ? null : set);
+        return true;
+    }
+
+    private record Waiter(long afterId, DeferredResult<List<ChatMessageDTO>> result) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat messages per minute over the retention window, kept in a ring of per-minute buckets.
+ * Only CHAT messages count, not JOIN/LEAVE notifications.
+ *
+ * The counts come from chat_messages, so they cover all rooms and every instance reports
+ * the same numbers, whichever rooms it is bound to. At startup the whole window is loaded;
+ * after that only the last few minutes are read again every chat.stats.refresh-ms (late
+ * write-behind rows included). A running total makes the window count O(1), and reads
+ * never allocate or query.
+ */
+@Component
+@Slf4j
+public class MessageRateCounter {
+
+    private static final DateTimeFormatter MINUTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Minutes read again on every refresh; covers rows written late by write-behind
+    private static final int REFRESH_MINUTES = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long[] counts;
+    private final long[] bucketMinutes;
+    private long total;
+    private long currentMinute;
+
+    public MessageRateCounter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                              @Value("${chat.history.retention.hours}") int retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counts = new long[retentionHours * 60];
+        this.bucketMinutes = new long[counts.length];
+        this.currentMinute = nowMinute();
+        for (int i = 0; i < counts.length; i++) {
+            bucketMinutes[slot(currentMinute - i)] = currentMinute - i;
+        }
+
+        Gauge.builder("chat.messages.window", this, MessageRateCounter::getWindowCount)
+            .description("Chat messages stored in the retention window")
+            .register(meterRegistry);
+        Gauge.builder("chat.messages.last-minute", this, MessageRateCounter::getLastMinuteCount)
+            .description("Chat messages stored in the last complete minute")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Load per-minute counts for the retention window from the database (the replica, when routed)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        if (load(LocalDateTime.now().minusMinutes(counts.length - 1L))) {
+            log.info("Message rate counter seeded with {} messages", getWindowCount());
+        }
+    }
+
+    /**
+     * Read the most recent minutes again, picking up messages stored by every instance since
+     */
+    @Scheduled(fixedDelayString = "${chat.stats.refresh-ms:15000}", initialDelayString = "${chat.stats.refresh-ms:15000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        load(LocalDateTime.now().withSecond(0).withNano(0).minusMinutes(REFRESH_MINUTES));
+    }
+
+    private boolean load(LocalDateTime since) {
+        String sql = """
+            SELECT DATE_FORMAT(timestamp, '%Y-%m-%d %H:%i:00') AS minute, COUNT(*) AS messages
+            FROM chat_messages
+            WHERE timestamp >= ? AND type = 'CHAT'
+            GROUP BY minute
+            """;
+        try {
+            jdbcTemplate.query(sql, rs -> {
+                long minute = TimeUnit.SECONDS.toMinutes(LocalDateTime.parse(rs.getString("minute"), MINUTE)
+                    .atZone(ZoneId.systemDefault()).toEpochSecond());
+                setMinute(minute, rs.getLong("messages"));
+            }, since);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Could not load message counts, keeping the previous ones: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Messages in the retention window
+     */
+    public synchronized long getWindowCount() {
+        advance(nowMinute());
+        return total;
+    }
+
+    /**
+     * Messages in the last complete minute
+     */
+    public long getLastMinuteCount() {
+        return sumLastMinutes(1);
+    }
+
+    /**
+     * Average messages per minute over the last complete minutes (the current minute is excluded)
+     */
+    public double getRatePerMinute(int minutes) {
+        int window = Math.min(minutes, counts.length - 1);
+        return window > 0 ? (double) sumLastMinutes(window) / window : 0;
+    }
+
+    private synchronized long sumLastMinutes(int minutes) {
+        advance(nowMinute());
+        long sum = 0;
+        for (int i = 1; i <= minutes && i < counts.length; i++) {
+            long minute = currentMinute - i;
+            int slot = slot(minute);
+            if (bucketMinutes[slot] == minute) {
+                sum += counts[slot];
+            }
+        }
+        return sum;
+    }
+
+    private synchronized void setMinute(long minute, long messages) {
+        advance(nowMinute());
+        if (minute <= currentMinute - counts.length || minute > currentMinute) {
+            return;
+        }
+        int slot = slot(minute);
+        long existing = bucketMinutes[slot] == minute ? counts[slot] : 0;
+        bucketMinutes[slot] = minute;
+        counts[slot] = messages;
+        total += messages - existing;
+    }
+
+    /**
+     * Move the window forward, clearing buckets that fell out of it
+     */
+    private void advance(long minute) {
+        if (minute <= currentMinute) {
+            return;
+        }
+        long steps = Math.min(minute - currentMinute, counts.length);
+        for (long m = minute - steps + 1; m <= minute; m++) {
+            int slot = slot(m);
+            total -= counts[slot];
+            counts[slot] = 0;
+            bucketMinutes[slot] = m;
+        }
+        currentMinute = minute;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) counts.length);
+    }
+
+    private static long nowMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.chat.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest known message sequence per room on this instance, the validator for conditional polls.
+ *
+ * A room is tracked while the instance queue is bound to it (ChatRoomService opens and
+ * closes it), so every message of the room passes through the listener and advances the
+ * sequence. Each opening starts a new generation, and a lost RabbitMQ connection drops
+ * all rooms, since messages may have been missed while the auto-delete queue was gone.
+ * A room's state is only validated once it has been unchanged for chat.poll.conditional.settle-ms,
+ * so a room in the middle of a burst does not hand out validators that miss on the next poll.
+ * Untracked rooms, shared-queue mode, write-behind (messages reach MySQL after the
+ * broadcast) and replica routing (a message can be broadcast before the replica that
+ * answers the poll has it) get no validator, and their polls are always answered by ChatService.
+ */
+@Component
+public class RoomSequenceTracker {
+
+    // Distinguishes this process, so a validator from another instance never matches
+    private final String instanceTag = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong generations = new AtomicLong();
+    private final Map<String, Sequence> rooms = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long settleMs;
+
+    public RoomSequenceTracker(
+            @Value("${chat.poll.conditional.enabled:true}") boolean conditional,
+            @Value("${chat.poll.conditional.settle-ms:1000}") long settleMs,
+            @Value("${chat.queue.per-instance:true}") boolean perInstanceQueue,
+            @Value("${chat.persistence.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${chat.datasource.replica.enabled:false}") boolean replicaRouting) {
+        this.enabled = conditional && perInstanceQueue && !writeBehind && !replicaRouting;
+        this.settleMs = settleMs;
+    }
+
+    /**
+     * Start tracking a room; call once the binding is in place
+     */
+    public void open(String room) {
+        if (enabled) {
+            rooms.put(room, new Sequence(generations.incrementAndGet()));
+        }
+    }
+
+    public void close(String room) {
+        rooms.remove(room);
+    }
+
+    public void closeAll() {
+        rooms.clear();
+    }
+
+    public void onMessage(String room) {
+        Sequence sequence = rooms.get(room);
+        if (sequence != null) {
+            sequence.advance();
+        }
+    }
+
+    /**
+     * Validator for the room's current state, or null when this instance cannot tell
+     * whether it changed. Read it before loading the messages it validates.
+     */
+    public Validator validator(String room) {
+        Sequence sequence = rooms.get(room);
+        return sequence != null ? sequence.validator() : null;
+    }
+
+    /**
+     * Room state as seen by this instance, one ETag per request cursor
+     */
+    public record Validator(String tag) {
+
+        public String etag(long after, int limit) {
+            return "W/\"" + tag + "-" + after + "-" + limit + "\"";
+        }
+    }
+
+    private final class Sequence {
+
+        private final long generation;
+        private final AtomicLong sequence = new AtomicLong();
+        private volatile long changedAt = System.currentTimeMillis();
+
+        Sequence(long generation) {
+            this.generation = generation;
+        }
+
+        void advance() {
+            changedAt = System.currentTimeMillis();
+            sequence.incrementAndGet();
+        }
+
+        Validator validator() {
+            long value = sequence.get();
+            long changed = changedAt;
+            if (System.currentTimeMillis() - changed < settleMs) {
+                return null;
+            }
+            return new Validator(instanceTag + "." + generation + "." + value);
+        }
+    }
+}
@@ -1,32 +1,298 @@
 package com.example.chat.service;
 
+import com.example.chat.config.InstanceInfo;
+import com.example.chat.model.PresenceEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Cluster-wide presence, keyed by WebSocket session.
+ *
+ * Sessions of this instance are added on join and removed on leave or when the
+ * WebSocket disconnects, so dropped connections do not leak. Every change is
+ * published as a numbered delta on the presence exchange; a periodic heartbeat
+ * carries the latest sequence number. A receiver that sees a gap asks the
+ * owner for a full snapshot, so all instances converge on the same view.
+ * Instances that stop sending heartbeats are expired together with their sessions.
+ *
+ * Counts are maintained incrementally and read without locking or copying.
+ */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class UserSessionService {
 
-    private final Set<String> activeUsers = ConcurrentHashMap.newKeySet();
+    private final RabbitTemplate rabbitTemplate;
+    private final InstanceInfo instanceInfo;
+    private final MeterRegistry meterRegistry;
 
-    public void addUser(String username) {
-        activeUsers.add(username);
+    @Value("${chat.presence.exchange:chat.presence}")
+    private String presenceExchange;
+
+    @Value("${chat.presence.instance-timeout-ms:15000}")
+    private long instanceTimeoutMs;
+
+    @Value("${chat.presence.heartbeat-interval-ms:5000}")
+    private long heartbeatIntervalMs;
+
+    // Sessions per instance (including this one); guarded by "this"
+    private final Map<String, InstanceView> instances = new HashMap<>();
+    // Open sessions per username across the cluster; written under "this", read lock-free
+    private final Map<String, Integer> userSessions = new ConcurrentHashMap<>();
+    private volatile int sessionCount;
+
+    private InstanceView local;
+
+    @PostConstruct
+    public void init() {
+        local = new InstanceView();
+        instances.put(instanceInfo.getInstanceId(), local);
+
+        Gauge.builder("chat.presence.users", userSessions, Map::size)
+            .description("Distinct users online across all instances")
+            .register(meterRegistry);
+        Gauge.builder("chat.presence.sessions", this, UserSessionService::getOnlineSessionCount)
+            .description("WebSocket sessions online across all instances")
+            .register(meterRegistry);
+        Gauge.builder("chat.presence.instances", this, UserSessionService::getInstanceCount)
+            .description("Instances currently reporting presence")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ask running instances for their sessions instead of waiting for their next change
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestInitialSync() {
+        publish(new PresenceEvent(PresenceEvent.Type.SYNC_REQUEST, instanceInfo.getInstanceId(),
+            0, null, null, null, null));
+    }
+
+    public void addUser(String sessionId, String username) {
+        PresenceEvent event;
+        synchronized (this) {
+            if (username.equals(local.sessions.get(sessionId))) {
+                return;
+            }
+            removeSession(local, sessionId);
+            addSession(local, sessionId, username);
+            event = new PresenceEvent(PresenceEvent.Type.JOIN, instanceInfo.getInstanceId(),
+                ++local.sequence, sessionId, username, null, null);
+        }
+        publish(event);
     }
 
-    public void removeUser(String username) {
-        activeUsers.remove(username);
+    public void removeUser(String sessionId) {
+        PresenceEvent event;
+        synchronized (this) {
+            String username = removeSession(local, sessionId);
+            if (username == null) {
+                return;
+            }
+            event = new PresenceEvent(PresenceEvent.Type.LEAVE, instanceInfo.getInstanceId(),
+                ++local.sequence, sessionId, username, null, null);
+        }
+        publish(event);
+    }
+
+    /**
+     * Closed or dropped WebSocket connections leave without sending /chat.leave
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        removeUser(event.getSessionId());
     }
 
     public boolean isUserOnline(String username) {
-        return activeUsers.contains(username);
+        return userSessions.containsKey(username);
     }
 
     public int getOnlineUserCount() {
-        return activeUsers.size();
+        return userSessions.size();
+    }
+
+    public int getOnlineSessionCount() {
+        return sessionCount;
+    }
+
+    public synchronized int getInstanceCount() {
+        return instances.size();
     }
 
+    /**
+     * Live read-only view of the online usernames
+     */
     public Set<String> getActiveUsers() {
-        return Set.copyOf(activeUsers);
+        return Collections.unmodifiableSet(userSessions.keySet());
+    }
+
+    @RabbitListener(queues = "#{presenceQueue.name}")
+    public void onPresenceEvent(PresenceEvent event) {
+        String owner = event.getInstanceId();
+        if (owner == null || owner.equals(instanceInfo.getInstanceId())) {
+            return;
+        }
+
+        PresenceEvent reply = null;
+        synchronized (this) {
+            switch (event.getType()) {
+                case SYNC_REQUEST -> {
+                    if (event.getTargetInstanceId() == null
+                            || event.getTargetInstanceId().equals(instanceInfo.getInstanceId())) {
+                        reply = snapshot();
+                    }
+                }
+                case SNAPSHOT -> {
+                    InstanceView view = instances.computeIfAbsent(owner, id -> new InstanceView());
+                    view.lastSeen = System.currentTimeMillis();
+                    if (event.getSequence() < view.sequence) {
+                        break;
+                    }
+                    replaceSessions(view, event.getSessions() != null ? event.getSessions() : Map.of());
+                    view.sequence = event.getSequence();
+                    view.syncRequestedAt = 0;
+                }
+                case JOIN, LEAVE -> {
+                    InstanceView view = instances.computeIfAbsent(owner, id -> new InstanceView());
+                    view.lastSeen = System.currentTimeMillis();
+                    if (event.getSequence() <= view.sequence) {
+                        break;
+                    }
+                    if (event.getType() == PresenceEvent.Type.JOIN) {
+                        removeSession(view, event.getSessionId());
+                        addSession(view, event.getSessionId(), event.getUsername());
+                    } else {
+                        removeSession(view, event.getSessionId());
+                    }
+                    // Apply the delta either way; a gap means something was missed, so resync as well
+                    if (event.getSequence() != view.sequence + 1) {
+                        reply = requestSync(view, owner);
+                    }
+                    view.sequence = event.getSequence();
+                }
+                case HEARTBEAT -> {
+                    InstanceView view = instances.computeIfAbsent(owner, id -> new InstanceView());
+                    view.lastSeen = System.currentTimeMillis();
+                    if (event.getSequence() > view.sequence) {
+                        reply = requestSync(view, owner);
+                    }
+                }
+                case GOODBYE -> dropInstance(owner);
+            }
+        }
+        if (reply != null) {
+            publish(reply);
+        }
+    }
+
+    /**
+     * Announce this instance and expire instances that stopped sending heartbeats
+     */
+    @Scheduled(fixedRateString = "${chat.presence.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        long sequence;
+        synchronized (this) {
+            sequence = local.sequence;
+            long expiredBefore = System.currentTimeMillis() - instanceTimeoutMs;
+            instances.entrySet().stream()
+                .filter(entry -> entry.getValue() != local && entry.getValue().lastSeen < expiredBefore)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(instanceId -> {
+                    log.warn("Presence of instance {} expired (no heartbeat for {} ms)", instanceId, instanceTimeoutMs);
+                    dropInstance(instanceId);
+                });
+        }
+        publish(new PresenceEvent(PresenceEvent.Type.HEARTBEAT, instanceInfo.getInstanceId(),
+            sequence, null, null, null, null));
+    }
+
+    /**
+     * Let the other instances drop our sessions right away instead of waiting for the timeout
+     */
+    @PreDestroy
+    public void goodbye() {
+        publish(new PresenceEvent(PresenceEvent.Type.GOODBYE, instanceInfo.getInstanceId(),
+            0, null, null, null, null));
+    }
+
+    private PresenceEvent snapshot() {
+        return new PresenceEvent(PresenceEvent.Type.SNAPSHOT, instanceInfo.getInstanceId(),
+            local.sequence, null, null, Map.copyOf(local.sessions), null);
+    }
+
+    /**
+     * Called with the lock held; at most one outstanding request per heartbeat interval
+     */
+    private PresenceEvent requestSync(InstanceView view, String owner) {
+        long now = System.currentTimeMillis();
+        if (now - view.syncRequestedAt < heartbeatIntervalMs) {
+            return null;
+        }
+        view.syncRequestedAt = now;
+        return new PresenceEvent(PresenceEvent.Type.SYNC_REQUEST, instanceInfo.getInstanceId(),
+            0, null, null, null, owner);
+    }
+
+    private void dropInstance(String instanceId) {
+        InstanceView view = instances.remove(instanceId);
+        if (view != null) {
+            replaceSessions(view, Map.of());
+        }
+    }
+
+    private void replaceSessions(InstanceView view, Map<String, String> sessions) {
+        Map.copyOf(view.sessions).keySet().forEach(sessionId -> removeSession(view, sessionId));
+        sessions.forEach((sessionId, username) -> addSession(view, sessionId, username));
+    }
+
+    private void addSession(InstanceView view, String sessionId, String username) {
+        view.sessions.put(sessionId, username);
+        userSessions.merge(username, 1, Integer::sum);
+        sessionCount++;
+    }
+
+    private String removeSession(InstanceView view, String sessionId) {
+        String username = view.sessions.remove(sessionId);
+        if (username != null) {
+            userSessions.computeIfPresent(username, (name, count) -> count > 1 ? count - 1 : null);
+            sessionCount--;
+        }
+        return username;
+    }
+
+    private void publish(PresenceEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(presenceExchange, "", event);
+        } catch (AmqpException e) {
+            // The next heartbeat reveals the gap and peers resync from a snapshot
+            log.warn("Failed to publish presence {}: {}", event.getType(), e.getMessage());
+        }
+    }
+
+    private static final class InstanceView {
+        private final Map<String, String> sessions = new HashMap<>();
+        private long sequence;
+        private long lastSeen = System.currentTimeMillis();
+        private long syncRequestedAt;
     }
 }
@@ -0,0 +1,202 @@
+package com.example.chat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-session outbound queue.
+ *
+ * {@link #sendMessage} only appends to a bounded queue and returns, so the
+ * clientOutboundChannel threads that fan messages out never wait on a slow
+ * socket. A task on the shared send executor drains the queue; at most one
+ * drain runs per session. When the queue exceeds its limits the configured
+ * {@link SlowConsumerPolicy} is applied. Drops are added to the shared counter;
+ * the first one is logged with the session id.
+ */
+@Slf4j
+class BoundedSendSessionDecorator extends WebSocketSessionDecorator {
+
+    private final Executor sendExecutor;
+    private final SlowConsumerPolicy policy;
+    private final int maxMessages;
+    private final int maxBytes;
+    private final Counter droppedCounter;
+
+    private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private int queuedBytes;
+    private volatile boolean closed;
+
+    BoundedSendSessionDecorator(WebSocketSession delegate, Executor sendExecutor,
+                                SlowConsumerPolicy policy, int maxMessages, int maxBytes, Counter droppedCounter) {
+        super(delegate);
+        this.sendExecutor = sendExecutor;
+        this.policy = policy;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.droppedCounter = droppedCounter;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closed) {
+            return;
+        }
+
+        boolean disconnect = false;
+        synchronized (queue) {
+            queue.addLast(message);
+            queuedBytes += message.getPayloadLength();
+            if (queue.size() > maxMessages || queuedBytes > maxBytes) {
+                disconnect = applyPolicy();
+            }
+        }
+
+        if (disconnect) {
+            log.warn("Closing slow WebSocket session {} (outbound queue full)", getId());
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        scheduleDrain();
+    }
+
+    int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    void markClosed() {
+        closed = true;
+        synchronized (queue) {
+            queue.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    /**
+     * Called with the queue lock held; returns true when the session must be closed
+     */
+    private boolean applyPolicy() {
+        switch (policy) {
+            case DISCONNECT -> {
+                return dropAll(queue.size());
+            }
+            case COALESCE -> {
+                int frames = queue.size();
+                coalesce();
+                if (queue.size() == 1 && queuedBytes > maxBytes) {
+                    // Even merged into one frame the backlog does not fit: the client cannot keep up
+                    return dropAll(frames);
+                }
+            }
+            case DROP_OLDEST -> { }
+        }
+        // Drop the oldest frames until the queue fits again (always keep the newest)
+        while (queue.size() > 1 && (queue.size() > maxMessages || queuedBytes > maxBytes)) {
+            queuedBytes -= queue.removeFirst().getPayloadLength();
+            recordDropped(1);
+        }
+        return false;
+    }
+
+    /**
+     * Drop the whole queue, counting the frames it held before any coalescing
+     */
+    private boolean dropAll(int frames) {
+        recordDropped(frames);
+        queue.clear();
+        queuedBytes = 0;
+        return true;
+    }
+
+    private void recordDropped(int frames) {
+        if (dropped.getAndAdd(frames) == 0) {
+            log.warn("WebSocket session {} cannot keep up, dropping frames ({})", getId(), policy);
+        }
+        droppedCounter.increment(frames);
+    }
+
+    private void coalesce() {
+        if (queue.size() < 2 || !queue.stream().allMatch(TextMessage.class::isInstance)) {
+            return;
+        }
+        StringBuilder merged = new StringBuilder(queuedBytes);
+        for (WebSocketMessage<?> frame : queue) {
+            merged.append(((TextMessage) frame).getPayload());
+        }
+        queue.clear();
+        TextMessage coalesced = new TextMessage(merged);
+        queue.addLast(coalesced);
+        queuedBytes = coalesced.getPayloadLength();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            sendExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next != null) {
+                    queuedBytes -= next.getPayloadLength();
+                }
+            }
+
+            if (next == null) {
+                draining.set(false);
+                // A message may have been queued after the poll but before the flag was cleared
+                synchronized (queue) {
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            if (closed || !isOpen()) {
+                draining.set(false);
+                return;
+            }
+
+            try {
+                getDelegate().sendMessage(next);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+                draining.set(false);
+                closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+                return;
+            }
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        markClosed();
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+}
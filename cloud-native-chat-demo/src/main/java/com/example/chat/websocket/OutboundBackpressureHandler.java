@@ -0,0 +1,101 @@
+package com.example.chat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Wraps every new WebSocket session in a {@link BoundedSendSessionDecorator}
+ * and publishes the outbound queue depth and drop count across all sessions.
+ * Metrics carry no session tag (one series per session would grow without
+ * bound); sessions that drop frames are named in the log instead.
+ */
+@Slf4j
+public class OutboundBackpressureHandler extends WebSocketHandlerDecorator {
+
+    // Tomcat's per-session timeout for blocking writes, bounds how long a stalled client holds a send thread
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Executor sendExecutor;
+    private final SlowConsumerPolicy policy;
+    private final int maxMessages;
+    private final int maxBytes;
+    private final long sendTimeLimitMs;
+    private final Counter dropped;
+    private final Counter disconnected;
+    private final Map<String, BoundedSendSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    public OutboundBackpressureHandler(WebSocketHandler delegate, Executor sendExecutor, SlowConsumerPolicy policy,
+                                       int maxMessages, int maxBytes, long sendTimeLimitMs,
+                                       MeterRegistry meterRegistry) {
+        super(delegate);
+        this.sendExecutor = sendExecutor;
+        this.policy = policy;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+
+        Gauge.builder("chat.websocket.outbound.queue.depth", sessions, OutboundBackpressureHandler::totalDepth)
+            .description("Frames waiting to be written, summed over all sessions")
+            .register(meterRegistry);
+        Gauge.builder("chat.websocket.outbound.queue.depth.max", sessions, OutboundBackpressureHandler::maxDepth)
+            .description("Frames waiting to be written to the most backed-up session")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("chat.websocket.outbound.dropped")
+            .description("Frames dropped because their session could not keep up")
+            .register(meterRegistry);
+        this.disconnected = Counter.builder("chat.websocket.outbound.closed")
+            .description("Sessions closed because they could not keep up")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session container = nativeSession.getNativeSession(Session.class);
+            if (container != null) {
+                container.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+
+        BoundedSendSessionDecorator decorated =
+            new BoundedSendSessionDecorator(session, sendExecutor, policy, maxMessages, maxBytes, dropped);
+        sessions.put(session.getId(), decorated);
+        super.afterConnectionEstablished(decorated);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        BoundedSendSessionDecorator decorated = sessions.remove(session.getId());
+        if (decorated != null) {
+            decorated.markClosed();
+            if (decorated.getDroppedCount() > 0) {
+                log.info("WebSocket session {} closed ({}) after {} dropped frames",
+                    session.getId(), closeStatus.getCode(), decorated.getDroppedCount());
+            }
+        }
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+            disconnected.increment();
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    private static double totalDepth(Map<String, BoundedSendSessionDecorator> sessions) {
+        return sessions.values().stream().mapToInt(BoundedSendSessionDecorator::getQueueDepth).sum();
+    }
+
+    private static double maxDepth(Map<String, BoundedSendSessionDecorator> sessions) {
+        return sessions.values().stream().mapToInt(BoundedSendSessionDecorator::getQueueDepth).max().orElse(0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.chat.websocket;
+
+import com.example.chat.model.ChatRoom;
+import com.example.chat.service.ChatRoomService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Hands room subscriptions to {@link ChatRoomService} before the broker sees them, and refuses
+ * the SUBSCRIBE when this instance cannot bind another room (chat.rooms.max-bound).
+ * The client then gets an ERROR frame and falls back to polling.
+ */
+public class RoomSubscriptionInterceptor implements ChannelInterceptor {
+
+    // Looked up lazily: ChatRoomService depends on beans that are created after the broker configuration
+    private final ObjectProvider<ChatRoomService> chatRoomService;
+
+    public RoomSubscriptionInterceptor(ObjectProvider<ChatRoomService> chatRoomService) {
+        this.chatRoomService = chatRoomService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        String room = ChatRoom.fromDestination(accessor.getDestination());
+        if (room == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return message;
+        }
+        if (!chatRoomService.getObject().subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), room)) {
+            throw new MessageDeliveryException(message, "Too many rooms on this instance, try again later");
+        }
+        return message;
+    }
+}
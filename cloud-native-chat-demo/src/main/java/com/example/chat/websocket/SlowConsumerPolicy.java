@@ -0,0 +1,24 @@
+package com.example.chat.websocket;
+
+/**
+ * What to do when a WebSocket client cannot keep up with outbound messages
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Drop the oldest queued frames until the queue fits its limits again
+     */
+    DROP_OLDEST,
+
+    /**
+     * Merge queued STOMP frames into a single WebSocket message (stomp.js splits
+     * them again); when the merged frame still exceeds the byte limit the session
+     * is closed as with DISCONNECT
+     */
+    COALESCE,
+
+    /**
+     * Close the session; the client reconnects and reloads history
+     */
+    DISCONNECT
+}
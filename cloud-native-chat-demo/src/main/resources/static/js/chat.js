@@ -2,14 +2,23 @@ let stompClient = null;
 let username = null;
 let usingPolling = false;
 let pollingInterval = null;
-let lastMessageTime = null;
+let pollingActive = false;
+let lastMessageId = window.initialLastMessageId || 0;
+// Validator of the last plain poll, sent back as If-None-Match
+let pollEtag = null;
+const room = window.chatRoom || 'general';
+// Messages shown before they had a database id (server in write-behind mode)
+const unpersistedShown = new Set();
+// Plain polling when long-polls fail (e.g. a proxy cuts long requests), then long-polling is tried again
+const SHORT_POLL_INTERVAL_MS = 3000;
+const SHORT_POLLS_BEFORE_RETRY = 20;
 
 // Initialize on page load
 document.addEventListener('DOMContentLoaded', function() {
     username = sessionStorage.getItem('chatUsername');
 
     if (!username) {
-        window.location.href = '/';
+        window.location.href = '/?room=' + encodeURIComponent(room);
         return;
     }
 
@@ -69,13 +78,14 @@ function onConnected() {
     usingPolling = false;
     updateConnectionStatus();
 
-    // Subscribe to the message topic
-    stompClient.subscribe('/topic/messages', onMessageReceived);
+    // Subscribe to the room's topic
+    stompClient.subscribe('/topic/rooms/' + room, onMessageReceived);
 
     // Send join notification
     const joinMessage = {
         username: username,
-        type: 'JOIN'
+        type: 'JOIN',
+        room: room
     };
 
     stompClient.send('/app/chat.join', {}, JSON.stringify(joinMessage));
@@ -106,7 +116,8 @@ function sendMessage(event) {
         const chatMessage = {
             username: username,
             content: messageContent,
-            type: 'CHAT'
+            type: 'CHAT',
+            room: room
         };
 
         fetch('/api/chat/send', {
@@ -131,7 +142,8 @@ function sendMessage(event) {
         const chatMessage = {
             username: username,
             content: messageContent,
-            type: 'CHAT'
+            type: 'CHAT',
+            room: room
         };
 
         stompClient.send('/app/chat.send', {}, JSON.stringify(chatMessage));
@@ -140,8 +152,10 @@ function sendMessage(event) {
 }
 
 function onMessageReceived(payload) {
-    const message = JSON.parse(payload.body);
-    displayMessage(message);
+    // The server may broadcast a batch of messages as one frame
+    const body = JSON.parse(payload.body);
+    const messages = Array.isArray(body) ? body : [body];
+    messages.forEach(displayMessage);
 }
 
 function displayMessage(message) {
@@ -194,59 +208,103 @@ function showSystemMessage(text, type = 'info') {
 }
 
 function startPolling() {
-    // Initialize with current time minus a few seconds to catch recent messages
-    if (!lastMessageTime) {
-        lastMessageTime = new Date(Date.now() - 10000).toISOString();
-    }
-
-    // Poll immediately
+    // Long-poll: the server holds each request until a message arrives
+    pollingActive = true;
     pollMessages();
-
-    // Set up polling interval (every 5 seconds)
-    if (pollingInterval) {
-        clearInterval(pollingInterval);
-    }
-    pollingInterval = setInterval(pollMessages, 5000);
 }
 
 function stopPolling() {
+    pollingActive = false;
     if (pollingInterval) {
-        clearInterval(pollingInterval);
+        clearTimeout(pollingInterval);
         pollingInterval = null;
     }
 }
 
 function pollMessages() {
-    const since = lastMessageTime || new Date(Date.now() - 60000).toISOString();
+    if (!pollingActive) return;
 
-    fetch(`/api/messages/poll?since=${encodeURIComponent(since)}`)
+    fetch(`/api/messages/wait?room=${encodeURIComponent(room)}&after=${lastMessageId}`)
         .then(response => {
+            if (response.status === 503) {
+                // Server has too many parked polls: come back after Retry-After, spread out
+                // so that the refused clients do not all return at the same moment
+                const seconds = parseInt(response.headers.get('Retry-After'), 10) || 5;
+                pollingInterval = setTimeout(pollMessages, seconds * 1000 * (0.5 + Math.random()));
+                return null;
+            }
             if (!response.ok) {
                 throw new Error('Polling failed');
             }
             return response.json();
         })
         .then(messages => {
-            messages.forEach(message => {
-                displayMessage(message);
-                // Update last message time
-                if (message.timestamp) {
-                    lastMessageTime = message.timestamp;
-                }
-            });
+            if (messages === null) return;
+            displayPolledMessages(messages);
+            // Immediately wait for the next batch
+            pollingInterval = setTimeout(pollMessages, 0);
+        })
+        .catch(error => {
+            console.error('Long-poll error:', error);
+            // Fall back to plain polls for a while
+            pollingInterval = setTimeout(() => shortPoll(SHORT_POLLS_BEFORE_RETRY), SHORT_POLL_INTERVAL_MS);
+        });
+}
+
+function shortPoll(remaining) {
+    if (!pollingActive) return;
+
+    // Revalidate: the server answers 304 without reading messages while the room is unchanged
+    const headers = pollEtag ? { 'If-None-Match': pollEtag } : {};
+    fetch(`/api/messages/poll?room=${encodeURIComponent(room)}&after=${lastMessageId}`, { headers, cache: 'no-store' })
+        .then(response => {
+            if (response.status === 304) {
+                return [];
+            }
+            if (!response.ok) {
+                throw new Error('Polling failed');
+            }
+            pollEtag = response.headers.get('ETag');
+            return response.json();
+        })
+        .then(messages => {
+            displayPolledMessages(messages);
+            pollingInterval = remaining > 1
+                ? setTimeout(() => shortPoll(remaining - 1), SHORT_POLL_INTERVAL_MS)
+                : setTimeout(pollMessages, 0);
         })
         .catch(error => {
             console.error('Polling error:', error);
+            // Back off before retrying
+            pollingInterval = setTimeout(() => shortPoll(remaining), 5000);
         });
 }
 
+function displayPolledMessages(messages) {
+    messages.forEach(message => {
+        // Second precision: the database stores fewer fractional digits
+        const key = `${String(message.timestamp).slice(0, 19)}|${message.username}|${message.content}`;
+        if (message.id == null) {
+            // Not persisted yet: show it now, skip it when it comes back with an id
+            unpersistedShown.add(key);
+            displayMessage(message);
+            return;
+        }
+        if (!unpersistedShown.delete(key)) {
+            displayMessage(message);
+        }
+        // Advance the cursor
+        lastMessageId = Math.max(lastMessageId, message.id);
+    });
+}
+
 function updateConnectionStatus() {
     const statusElement = document.getElementById('connectionStatus');
     if (!statusElement) return;
 
     if (usingPolling) {
         statusElement.innerHTML = '⟳';
-        statusElement.title = 'Using polling mode (5s interval)';
+        statusElement.title = 'Using long-polling mode';
         statusElement.className = 'connection-status polling';
     } else {
         statusElement.innerHTML = '⚡';
@@ -262,7 +320,8 @@ function leaveChat() {
     if (stompClient && username && !usingPolling) {
         const leaveMessage = {
             username: username,
-            type: 'LEAVE'
+            type: 'LEAVE',
+            room: room
         };
 
         stompClient.send('/app/chat.leave', {}, JSON.stringify(leaveMessage));
@@ -308,7 +367,8 @@ window.addEventListener('beforeunload', function() {
     if (stompClient && stompClient.connected) {
         const leaveMessage = {
             username: username,
-            type: 'LEAVE'
+            type: 'LEAVE',
+            room: room
         };
         stompClient.send('/app/chat.leave', {}, JSON.stringify(leaveMessage));
     }
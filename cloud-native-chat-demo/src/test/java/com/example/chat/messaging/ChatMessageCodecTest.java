@@ -0,0 +1,73 @@
+package com.example.chat.messaging;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatMessageCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+
+    @Test
+    void roundTripsAllFields() {
+        ChatMessageDTO message = new ChatMessageDTO(300L, "alice", "Grüße 👋", ChatMessage.MessageType.CHAT,
+            TIMESTAMP, "general");
+
+        byte[] encoded = ChatMessageCodec.encode(message, 0);
+
+        assertThat(encoded[0]).isEqualTo(ChatMessageCodec.VERSION);
+        assertThat(ChatMessageCodec.decode(encoded)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsMissingFields() {
+        ChatMessageDTO message = new ChatMessageDTO(null, "bob", null, ChatMessage.MessageType.JOIN, null, null);
+
+        assertThat(ChatMessageCodec.decode(ChatMessageCodec.encode(message, 0))).isEqualTo(message);
+    }
+
+    @Test
+    void keepsTimestampsToTheMicrosecond() {
+        ChatMessageDTO message = new ChatMessageDTO(1L, "alice", "hi", ChatMessage.MessageType.CHAT,
+            TIMESTAMP.withNano(123_456_789), "general");
+
+        ChatMessageDTO decoded = ChatMessageCodec.decode(ChatMessageCodec.encode(message, 0));
+
+        assertThat(decoded.getTimestamp()).isEqualTo(TIMESTAMP.withNano(123_456_000));
+    }
+
+    @Test
+    void deflatesBodiesAboveTheThreshold() {
+        ChatMessageDTO message = new ChatMessageDTO(7L, "alice", "la ".repeat(500), ChatMessage.MessageType.CHAT,
+            TIMESTAMP, "general");
+
+        byte[] plain = ChatMessageCodec.encode(message, 0);
+        byte[] deflated = ChatMessageCodec.encode(message, 256);
+
+        assertThat(deflated[0] & 0x80).isNotZero();
+        assertThat(deflated.length).isLessThan(plain.length);
+        assertThat(ChatMessageCodec.decode(deflated)).isEqualTo(message);
+    }
+
+    @Test
+    void leavesSmallBodiesUncompressed() {
+        ChatMessageDTO message = new ChatMessageDTO(7L, "alice", "hi", ChatMessage.MessageType.CHAT,
+            TIMESTAMP, "general");
+
+        assertThat(ChatMessageCodec.encode(message, 256)).isEqualTo(ChatMessageCodec.encode(message, 0));
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndEmptyPayloads() {
+        assertThatThrownBy(() -> ChatMessageCodec.decode(new byte[0]))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChatMessageCodec.decode(new byte[] {2, 0}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("version 2");
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.chat.service;
+
+import com.example.chat.model.ChatMessage;
+import com.example.chat.model.ChatMessageDTO;
+import com.example.chat.repository.ChatMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatHistoryCacheTest {
+
+    private static final String ROOM = "general";
+
+    private final LocalDateTime base = LocalDateTime.now().minusMinutes(5);
+    private ChatMessageRepository repository;
+    private ChatHistoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChatMessageRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void warmsFromTheDatabaseAndFollowsLiveMessages() throws InterruptedException {
+        when(repository.findPageBefore(eq(ROOM), eq(Long.MAX_VALUE), any(Pageable.class)))
+            .thenReturn(LongStream.rangeClosed(1, 10).mapToObj(this::message).toList().reversed());
+        cache = cache(1000, 10_000);
+
+        openAndWarm(ROOM);
+        LongStream.rangeClosed(11, 15).forEach(id -> cache.add(dto(id)));
+
+        assertThat(ids(cache.getMessagesAfter(ROOM, 8, 100))).containsExactly(9L, 10L, 11L, 12L, 13L, 14L, 15L);
+        assertThat(ids(cache.getMessagesAfter(ROOM, 8, 2))).containsExactly(9L, 10L);
+        assertThat(ids(cache.getLatestMessages(ROOM, 3))).containsExactly(13L, 14L, 15L);
+        assertThat(ids(cache.getMessagesSince(ROOM, timestamp(12), 100))).containsExactly(13L, 14L, 15L);
+    }
+
+    @Test
+    void answersNothingForRoomsItDoesNotHold() throws InterruptedException {
+        cache = cache(1000, 10_000);
+
+        assertThat(cache.getLatestMessages(ROOM, 10)).isNull();
+        openAndWarm(ROOM);
+        cache.close(ROOM);
+
+        assertThat(cache.getLatestMessages(ROOM, 10)).isNull();
+        assertThat(cache.getMessagesAfter(ROOM, 0, 10)).isNull();
+    }
+
+    @Test
+    void growsRingsBeyondTheInitialCapacity() throws InterruptedException {
+        cache = cache(1000, 10_000);
+        openAndWarm(ROOM);
+
+        LongStream.rangeClosed(1, 600).forEach(id -> cache.add(dto(id)));
+
+        assertThat(cache.getMessagesAfter(ROOM, 1, 1000)).hasSize(599);
+        assertThat(ids(cache.getLatestMessages(ROOM, 1))).containsExactly(600L);
+    }
+
+    @Test
+    void dropsTheOldestMessagesAtTheRoomLimit() throws InterruptedException {
+        cache = cache(300, 10_000);
+        openAndWarm(ROOM);
+
+        LongStream.rangeClosed(1, 600).forEach(id -> cache.add(dto(id)));
+
+        // The cursor is older than anything held: the database has to answer
+        assertThat(cache.getMessagesAfter(ROOM, 1, 10)).isNull();
+        assertThat(cache.getMessagesSince(ROOM, timestamp(1), 10)).isNull();
+        assertThat(ids(cache.getMessagesAfter(ROOM, 400, 3))).containsExactly(401L, 402L, 403L);
+        assertThat(cache.getLatestMessages(ROOM, 1000)).hasSize(300);
+    }
+
+    @Test
+    void keepsAllRoomsWithinTheTotalLimit() throws InterruptedException {
+        cache = cache(1000, 256);
+        openAndWarm(ROOM);
+        cache.open("random");
+
+        LongStream.rangeClosed(1, 300).forEach(id -> cache.add(dto(id)));
+
+        // No slots left for a second ring, nor for the first to grow
+        assertThat(cache.getLatestMessages("random", 10)).isNull();
+        assertThat(cache.getLatestMessages(ROOM, 1000)).hasSize(256);
+
+        // Closing a room gives its slots back
+        cache.close(ROOM);
+        openAndWarm("random");
+    }
+
+    @Test
+    void answersCursorQueriesInIdOrder() throws InterruptedException {
+        cache = cache(1000, 10_000);
+        openAndWarm(ROOM);
+
+        // Timestamp order 1, 2, 4, 3, 5: message 4 was committed before message 3
+        for (long[] message : new long[][] {{1, 1}, {2, 2}, {4, 3}, {3, 4}, {5, 5}}) {
+            cache.add(ChatMessageDTO.fromEntity(message(message[0], message[1])));
+        }
+
+        assertThat(ids(cache.getMessagesAfter(ROOM, 2, 10))).containsExactly(3L, 4L, 5L);
+        assertThat(ids(cache.getMessagesAfter(ROOM, 3, 1))).containsExactly(4L);
+        assertThat(ids(cache.getLatestMessages(ROOM, 2))).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void resolvesWriteBehindIdsFromTheDatabase() throws InterruptedException {
+        when(repository.findMessagesSince(eq(ROOM), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(message(11), message(12)));
+        cache = cache(1000, 10_000);
+        openAndWarm(ROOM);
+
+        LongStream.rangeClosed(1, 10).forEach(id -> cache.add(dto(id)));
+        for (long i = 11; i <= 12; i++) {
+            ChatMessageDTO pending = dto(i);
+            pending.setId(null);
+            cache.add(pending);
+        }
+
+        assertThat(ids(cache.getMessagesAfter(ROOM, 10, 10))).containsExactly(11L, 12L);
+    }
+
+    @Test
+    void keepsOneCopyOfWriteBehindMessagesReceivedDuringWarmUp() throws InterruptedException {
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch liveAdded = new CountDownLatch(1);
+        when(repository.findPageBefore(eq(ROOM), eq(Long.MAX_VALUE), any(Pageable.class))).thenAnswer(invocation -> {
+            queried.countDown();
+            liveAdded.await(5, TimeUnit.SECONDS);
+            return LongStream.rangeClosed(1, 3).mapToObj(this::message).toList().reversed();
+        });
+        when(repository.findMessagesSince(eq(ROOM), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(message(3)));
+        cache = cache(1000, 10_000);
+
+        cache.open(ROOM);
+        assertThat(queried.await(5, TimeUnit.SECONDS)).isTrue();
+        // Message 3 was flushed while the page was read; its live copy has no id yet
+        ChatMessageDTO pending = dto(3);
+        pending.setId(null);
+        cache.add(pending);
+        cache.add(dto(4));
+        liveAdded.countDown();
+        openAndWarm(ROOM);
+
+        assertThat(ids(cache.getMessagesSince(ROOM, timestamp(0), 100))).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    private ChatHistoryCache cache(int maxMessages, long maxTotalMessages) {
+        return new ChatHistoryCache(repository, 1, maxMessages, maxTotalMessages, 0);
+    }
+
+    private void openAndWarm(String room) throws InterruptedException {
+        cache.open(room);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getLatestMessages(room, 1) == null) {
+            assertThat(System.nanoTime()).as("warm-up of " + room).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private ChatMessage message(long id) {
+        return message(id, id);
+    }
+
+    private ChatMessage message(long id, long order) {
+        return new ChatMessage(id, "alice", "message " + id, timestamp(order), ChatMessage.MessageType.CHAT, ROOM);
+    }
+
+    private ChatMessageDTO dto(long id) {
+        return ChatMessageDTO.fromEntity(message(id));
+    }
+
+    private LocalDateTime timestamp(long order) {
+        return base.plusNanos(order * 1_000_000L);
+    }
+
+    private static List<Long> ids(List<ChatMessageDTO> messages) {
+        assertThat(messages).isNotNull();
+        return messages.stream().map(ChatMessageDTO::getId).toList();
+    }
+}
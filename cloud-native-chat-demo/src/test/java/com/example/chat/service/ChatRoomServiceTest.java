@@ -0,0 +1,145 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ChatRoomServiceTest {
+
+    private AmqpAdmin amqpAdmin;
+    private RoomSequenceTracker sequenceTracker;
+    private TaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        amqpAdmin = mock(AmqpAdmin.class);
+        sequenceTracker = mock(RoomSequenceTracker.class);
+        taskScheduler = mock(TaskScheduler.class);
+    }
+
+    @Test
+    void refusesRoomsBeyondTheBoundLimit() {
+        ChatRoomService service = service(2);
+
+        assertThat(service.tryAcquire("a")).isTrue();
+        assertThat(service.tryAcquire("b")).isTrue();
+        assertThat(service.tryAcquire("c")).isFalse();
+        // Further references to a bound room need no new slot
+        assertThat(service.tryAcquire("a")).isTrue();
+
+        assertThat(service.getBoundRoomCount()).isEqualTo(2);
+        verify(amqpAdmin, times(2)).declareBinding(any());
+    }
+
+    @Test
+    void slowBindOnlyDelaysItsOwnRoom() throws Exception {
+        CountDownLatch brokerBlocked = new CountDownLatch(1);
+        CountDownLatch brokerReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            brokerBlocked.countDown();
+            brokerReleased.await();
+            return null;
+        }).when(amqpAdmin).declareBinding(argThat(binding -> binding != null && binding.getRoutingKey().endsWith("slow")));
+        ChatRoomService service = service(10);
+
+        CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(() -> service.tryAcquire("slow"));
+        assertThat(brokerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Neither another room nor the bound-room count waits for the broker
+        CompletableFuture<Boolean> fast = CompletableFuture.supplyAsync(() -> service.tryAcquire("fast"));
+        assertThat(fast.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.getBoundRoomCount()).isEqualTo(2);
+        assertThat(slow).isNotDone();
+
+        brokerReleased.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(sequenceTracker).open("slow");
+        verify(sequenceTracker).open("fast");
+    }
+
+    @Test
+    void unbindsOnceTheLastReferenceIsGone() {
+        ChatRoomService service = service(10);
+
+        service.tryAcquire("general");
+        service.tryAcquire("general");
+        service.release("general");
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        service.release("general");
+        runScheduledUnbind();
+
+        verify(sequenceTracker).close("general");
+        ArgumentCaptor<Binding> removed = ArgumentCaptor.forClass(Binding.class);
+        verify(amqpAdmin).removeBinding(removed.capture());
+        assertThat(removed.getValue().getRoutingKey()).isEqualTo("chat.room.general");
+        assertThat(service.getBoundRoomCount()).isZero();
+
+        // The slot is free again, and the room is bound anew
+        assertThat(service.tryAcquire("general")).isTrue();
+        verify(amqpAdmin, times(2)).declareBinding(any());
+    }
+
+    @Test
+    void keepsRoomsThatWereAcquiredAgainBound() {
+        ChatRoomService service = service(10);
+
+        service.tryAcquire("general");
+        service.release("general");
+        service.tryAcquire("general");
+        runScheduledUnbind();
+
+        verify(amqpAdmin, never()).removeBinding(any());
+        assertThat(service.getBoundRoomCount()).isEqualTo(1);
+    }
+
+    @Test
+    void plainPollsLeaseRoomsWithinTheBoundLimit() {
+        ChatRoomService service = service(1);
+
+        service.lease("general");
+        service.lease("random");
+
+        verify(sequenceTracker).open("general");
+        verify(sequenceTracker, never()).open("random");
+        assertThat(service.getBoundRoomCount()).isEqualTo(1);
+
+        // Nobody holds the room, so it is unbound when the lease runs out
+        runScheduledUnbind();
+        verify(amqpAdmin).removeBinding(any());
+        assertThat(service.getBoundRoomCount()).isZero();
+    }
+
+    private ChatRoomService service(int maxBound) {
+        return new ChatRoomService(amqpAdmin, new Queue("chat.messages.test"), new TopicExchange("chat.exchange"),
+            Optional.empty(), sequenceTracker, taskScheduler, mock(ConnectionFactory.class),
+            new SimpleMeterRegistry(), "chat.room.", true, 0, maxBound);
+    }
+
+    private void runScheduledUnbind() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(task.capture(), any(Instant.class));
+        task.getValue().run();
+    }
+}
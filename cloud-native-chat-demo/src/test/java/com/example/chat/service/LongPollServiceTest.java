@@ -0,0 +1,86 @@
+package com.example.chat.service;
+
+import com.example.chat.model.ChatMessageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LongPollServiceTest {
+
+    private ChatService chatService;
+    private ChatRoomService chatRoomService;
+
+    @BeforeEach
+    void setUp() {
+        chatService = mock(ChatService.class);
+        chatRoomService = mock(ChatRoomService.class);
+        when(chatRoomService.tryAcquire(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void wakesOnlyTheRequestsOfTheMessagesRoom() {
+        LongPollService service = service(10);
+        DeferredResult<List<ChatMessageDTO>> general = service.await("general", 5, 0);
+        DeferredResult<List<ChatMessageDTO>> random = service.await("random", 5, 0);
+
+        ChatMessageDTO message = message(6L, "general");
+        service.onMessage(message);
+
+        assertThat(general.getResult()).isEqualTo(List.of(message));
+        assertThat(random.hasResult()).isFalse();
+    }
+
+    @Test
+    void keepsRequestsParkedForMessagesTheyHaveSeen() {
+        LongPollService service = service(10);
+        DeferredResult<List<ChatMessageDTO>> parked = service.await("general", 7, 0);
+
+        service.onMessage(message(7L, "general"));
+        assertThat(parked.hasResult()).isFalse();
+
+        // Write-behind messages have no id yet and wake everyone in the room
+        service.onMessage(message(null, "general"));
+        assertThat(parked.hasResult()).isTrue();
+    }
+
+    @Test
+    void answersImmediatelyWhenMessagesAreAlreadyThere() {
+        ChatMessageDTO pending = message(3L, "general");
+        when(chatService.getMessagesAfter("general", 2, 0)).thenReturn(List.of(pending));
+
+        assertThat(service(10).await("general", 2, 0).getResult()).isEqualTo(List.of(pending));
+    }
+
+    @Test
+    void refusesRequestsBeyondTheWaiterLimit() {
+        LongPollService service = service(1);
+        service.await("general", 0, 0);
+
+        Object refused = service.await("random", 0, 0).getResult();
+
+        assertThat(refused).isInstanceOf(ResponseEntity.class);
+        assertThat(((ResponseEntity<?>) refused).getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private LongPollService service(int maxWaiters) {
+        return new LongPollService(chatService, chatRoomService, new SimpleMeterRegistry(), 25_000, maxWaiters, 5);
+    }
+
+    private static ChatMessageDTO message(Long id, String room) {
+        ChatMessageDTO message = new ChatMessageDTO();
+        message.setId(id);
+        message.setRoom(room);
+        message.setContent("hello");
+        return message;
+    }
+}
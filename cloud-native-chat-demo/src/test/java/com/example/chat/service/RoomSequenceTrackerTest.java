@@ -0,0 +1,92 @@
+package com.example.chat.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomSequenceTrackerTest {
+
+    @Test
+    void validatesOnlyOpenRooms() {
+        RoomSequenceTracker tracker = tracker(0);
+
+        assertThat(tracker.validator("general")).isNull();
+        tracker.open("general");
+        assertThat(tracker.validator("general")).isNotNull();
+        tracker.close("general");
+        assertThat(tracker.validator("general")).isNull();
+    }
+
+    @Test
+    void changesTheValidatorWithEveryMessage() {
+        RoomSequenceTracker tracker = tracker(0);
+        tracker.open("general");
+        RoomSequenceTracker.Validator before = tracker.validator("general");
+
+        tracker.onMessage("general");
+        tracker.onMessage("random");
+
+        assertThat(tracker.validator("general")).isNotEqualTo(before);
+        assertThat(tracker.validator("general").etag(5, 100)).isNotEqualTo(before.etag(5, 100));
+    }
+
+    @Test
+    void startsANewGenerationWhenARoomIsOpenedAgain() {
+        RoomSequenceTracker tracker = tracker(0);
+        tracker.open("general");
+        RoomSequenceTracker.Validator first = tracker.validator("general");
+
+        tracker.close("general");
+        tracker.open("general");
+
+        assertThat(tracker.validator("general")).isNotEqualTo(first);
+    }
+
+    @Test
+    void dropsAllRoomsWhenTheConnectionIsLost() {
+        RoomSequenceTracker tracker = tracker(0);
+        tracker.open("general");
+        tracker.open("random");
+
+        tracker.closeAll();
+
+        assertThat(tracker.validator("general")).isNull();
+        assertThat(tracker.validator("random")).isNull();
+    }
+
+    @Test
+    void waitsForTheRoomToSettle() {
+        RoomSequenceTracker tracker = tracker(60_000);
+        tracker.open("general");
+
+        assertThat(tracker.validator("general")).isNull();
+    }
+
+    @Test
+    void etagsDifferPerCursor() {
+        RoomSequenceTracker tracker = tracker(0);
+        tracker.open("general");
+        RoomSequenceTracker.Validator validator = tracker.validator("general");
+
+        assertThat(validator.etag(5, 100)).startsWith("W/\"").isNotEqualTo(validator.etag(6, 100));
+        assertThat(validator.etag(5, 100)).isNotEqualTo(validator.etag(5, 50));
+    }
+
+    @Test
+    void issuesNoValidatorsWhenPollsMayBeAnsweredFromStaleData() {
+        RoomSequenceTracker[] trackers = {
+            new RoomSequenceTracker(false, 0, true, false, false),
+            new RoomSequenceTracker(true, 0, false, false, false),
+            new RoomSequenceTracker(true, 0, true, true, false),
+            new RoomSequenceTracker(true, 0, true, false, true)
+        };
+        for (RoomSequenceTracker tracker : trackers) {
+            tracker.open("general");
+            assertThat(tracker.validator("general")).isNull();
+        }
+    }
+
+    private static RoomSequenceTracker tracker(long settleMs) {
+        return new RoomSequenceTracker(true, settleMs, true, false, false);
+    }
+}
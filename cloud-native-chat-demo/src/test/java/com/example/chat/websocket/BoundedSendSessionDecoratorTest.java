@@ -0,0 +1,158 @@
+package com.example.chat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BoundedSendSessionDecoratorTest {
+
+    private WebSocketSession session;
+    private Counter dropped;
+    // Collects drain tasks instead of running them, so frames stay queued until run() is called
+    private final List<Runnable> pending = new ArrayList<>();
+    private final Executor deferred = pending::add;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        dropped = new SimpleMeterRegistry().counter("dropped");
+    }
+
+    @Test
+    void sendsQueuedFramesInOrderOnTheSendExecutor() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.DROP_OLDEST, 10, 1000);
+
+        decorator.sendMessage(frame("a"));
+        decorator.sendMessage(frame("b"));
+        verify(session, never()).sendMessage(any());
+        assertThat(pending).hasSize(1);
+        run();
+
+        assertThat(sent()).containsExactly("a", "b");
+        assertThat(decorator.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestFrames() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.DROP_OLDEST, 2, 1000);
+
+        for (String payload : List.of("a", "b", "c", "d")) {
+            decorator.sendMessage(frame(payload));
+        }
+        run();
+
+        assertThat(sent()).containsExactly("c", "d");
+        assertThat(decorator.getDroppedCount()).isEqualTo(2);
+        assertThat(dropped.count()).isEqualTo(2);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void dropOldestEnforcesTheByteLimit() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.DROP_OLDEST, 10, 10);
+
+        decorator.sendMessage(frame("aaaaaa"));
+        decorator.sendMessage(frame("bbbbbb"));
+        run();
+
+        assertThat(sent()).containsExactly("bbbbbb");
+        assertThat(decorator.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void coalesceMergesQueuedFrames() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.COALESCE, 2, 1000);
+
+        for (String payload : List.of("a", "b", "c")) {
+            decorator.sendMessage(frame(payload));
+        }
+        run();
+
+        assertThat(sent()).containsExactly("abc");
+        assertThat(decorator.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void coalesceDisconnectsWhenTheMergedFrameExceedsTheByteLimit() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.COALESCE, 2, 10);
+
+        decorator.sendMessage(frame("aaaa"));
+        decorator.sendMessage(frame("bbbb"));
+        decorator.sendMessage(frame("cccc"));
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(decorator.getQueueDepth()).isZero();
+        assertThat(decorator.getDroppedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void disconnectClosesTheSessionAndIgnoresLaterFrames() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.DISCONNECT, 2, 1000);
+
+        for (String payload : List.of("a", "b", "c", "d")) {
+            decorator.sendMessage(frame(payload));
+        }
+        run();
+
+        verify(session, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertThat(decorator.getDroppedCount()).isEqualTo(3);
+        assertThat(decorator.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void closesTheSessionWhenASendFails() throws IOException {
+        BoundedSendSessionDecorator decorator = decorator(SlowConsumerPolicy.DROP_OLDEST, 10, 1000);
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(any());
+
+        decorator.sendMessage(frame("a"));
+        decorator.sendMessage(frame("b"));
+        run();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, times(1)).sendMessage(any());
+        assertThat(decorator.getQueueDepth()).isZero();
+    }
+
+    private BoundedSendSessionDecorator decorator(SlowConsumerPolicy policy, int maxMessages, int maxBytes) {
+        return new BoundedSendSessionDecorator(session, deferred, policy, maxMessages, maxBytes, dropped);
+    }
+
+    private void run() {
+        while (!pending.isEmpty()) {
+            pending.removeFirst().run();
+        }
+    }
+
+    private List<String> sent() throws IOException {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeast(0)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    private static TextMessage frame(String payload) {
+        return new TextMessage(payload);
+    }
+}
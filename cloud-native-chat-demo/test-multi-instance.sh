@@ -0,0 +1,140 @@
+#!/bin/bash
+
+# Multi-instance fan-out check
+# Starts two chat instances against the local MySQL/RabbitMQ from docker-compose.yaml,
+# parks a long-poll for the room on each instance (instances only bind rooms someone
+# on them is reading), sends one message through the first instance and verifies
+# that the per-instance queue of EVERY instance delivered it.
+
+RABBIT_API="http://localhost:15672/api"
+RABBIT_AUTH="guest:guest"
+ROOM="general"
+# A cursor no message can pass: the long-polls stay parked, holding the room bound, until they time out
+PARKED_AFTER=9223372036854775807
+JAR=$(ls target/cloud-native-chat-demo-*.jar 2>/dev/null | head -n 1)
+
+echo "======================================"
+echo "Testing Multi-Instance Message Fan-Out"
+echo "======================================"
+echo ""
+
+if [ -z "$JAR" ]; then
+    echo "✗ Application JAR not found. Build it first: mvn clean package -DskipTests"
+    exit 1
+fi
+
+if ! curl -s -u "$RABBIT_AUTH" "$RABBIT_API/overview" > /dev/null; then
+    echo "✗ RabbitMQ management API not reachable. Start infrastructure: docker compose up -d"
+    exit 1
+fi
+
+PIDS=()
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null
+    done
+}
+trap cleanup EXIT
+
+for port in 8080 8081; do
+    echo "Starting instance on port $port..."
+    java -jar "$JAR" --server.port=$port > "/tmp/chat-instance-$port.log" 2>&1 &
+    PIDS+=($!)
+done
+
+for port in 8080 8081; do
+    UP=0
+    for i in $(seq 1 60); do
+        if curl -s "http://localhost:$port/actuator/health" | grep -q '"UP"'; then
+            UP=1
+            break
+        fi
+        sleep 2
+    done
+    if [ $UP -eq 0 ]; then
+        echo "✗ Instance on port $port did not become healthy, see /tmp/chat-instance-$port.log"
+        exit 1
+    fi
+    echo "✓ Instance on port $port is up"
+done
+
+# Per-instance queues are named chat.messages.<instance-id>
+queue_deliveries() {
+    curl -s -u "$RABBIT_AUTH" "$RABBIT_API/queues/%2F" \
+        | python3 -c 'import json,sys
+for q in json.load(sys.stdin):
+    if q["name"].startswith("chat.messages."):
+        print(q["name"], q.get("message_stats", {}).get("deliver_get", 0))'
+}
+
+# Per-instance queues whose bindings include the room's routing key
+bound_queues() {
+    curl -s -u "$RABBIT_AUTH" "$RABBIT_API/bindings/%2F" \
+        | python3 -c 'import json,sys
+for b in json.load(sys.stdin):
+    if b["destination"].startswith("chat.messages.") and b["routing_key"] == "chat.room.'"$ROOM"'":
+        print(b["destination"])'
+}
+
+echo ""
+echo "Parking a long-poll for room '$ROOM' on each instance..."
+for port in 8080 8081; do
+    curl -s -o /dev/null "http://localhost:$port/api/messages/wait?room=$ROOM&after=$PARKED_AFTER" &
+    PIDS+=($!)
+done
+
+BOUND=0
+for i in $(seq 1 15); do
+    BOUND=$(bound_queues | wc -l)
+    [ "$BOUND" -ge 2 ] && break
+    sleep 1
+done
+if [ "$BOUND" -lt 2 ]; then
+    echo "✗ Expected 2 per-instance queues bound to room '$ROOM', found $BOUND"
+    exit 1
+fi
+echo "✓ Both instances bound room '$ROOM'"
+
+echo ""
+echo "Per-instance queues before sending:"
+queue_deliveries | tee /tmp/chat-queues-before.txt
+
+QUEUE_COUNT=$(wc -l < /tmp/chat-queues-before.txt)
+if [ "$QUEUE_COUNT" -lt 2 ]; then
+    echo "✗ Expected 2 per-instance queues, found $QUEUE_COUNT"
+    exit 1
+fi
+
+echo ""
+echo "Sending a message through the instance on port 8080..."
+curl -s -X POST "http://localhost:8080/api/chat/send" \
+    -H 'Content-Type: application/json' \
+    -d '{"username":"fanout-test","content":"hello from 8080","type":"CHAT","room":"'"$ROOM"'"}'
+
+# Management API statistics are refreshed every few seconds
+sleep 10
+
+echo ""
+echo "Per-instance queues after sending:"
+queue_deliveries | tee /tmp/chat-queues-after.txt
+
+FAILED=0
+while read -r name before; do
+    after=$(grep "^$name " /tmp/chat-queues-after.txt | awk '{print $2}')
+    if [ "${after:-0}" -gt "$before" ]; then
+        echo "✓ $name delivered the message"
+    else
+        echo "✗ $name did not deliver the message"
+        FAILED=1
+    fi
+done < /tmp/chat-queues-before.txt
+
+echo ""
+echo "======================================"
+if [ $FAILED -eq 0 ]; then
+    echo "Fan-out test passed: every instance received the message"
+else
+    echo "Fan-out test FAILED"
+fi
+echo "======================================"
+exit $FAILED
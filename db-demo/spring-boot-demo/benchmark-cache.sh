@@ -0,0 +1,96 @@
+#!/bin/bash
+
+# Cache benchmark: the same read load against the app with and without caching
+#   - none:      every request goes to the database
+#   - caffeine:  pet lookups and list pages from the local cache (default)
+#   - l2:        Hibernate second-level cache for Pet entities only (local cache off, so
+#                the entity loads reach Hibernate instead of being answered by Spring Cache)
+# Reports requests/s and mean latency per endpoint (ApacheBench), plus cache hit/miss counts
+# from /actuator/metrics. The app needs PostgreSQL running (docker compose up -d postgres).
+#
+# Build first:  mvn clean package -DskipTests
+#
+# Usage: ./benchmark-cache.sh [requests] [concurrency]
+
+REQUESTS=${1:-20000}
+CONCURRENCY=${2:-32}
+PORT=8092
+NAME=spring-boot-db-demo
+JAR=$(ls target/$NAME-*.jar 2>/dev/null | grep -v original | head -n 1)
+RESULTS=benchmark-cache-results.txt
+BASE="http://localhost:$PORT"
+ENDPOINTS=("/api/pets" "/api/pets?gender=Female&sort=age&size=10" "/api/pets/1" "/")
+
+echo "======================================"
+echo "Benchmarking Cached vs Uncached Reads"
+echo "======================================"
+echo ""
+
+if [ -z "$JAR" ]; then
+    echo "✗ Jar not found. Build it first: mvn clean package -DskipTests"
+    exit 1
+fi
+if ! command -v ab > /dev/null; then
+    echo "✗ ApacheBench (ab) not found. Install apache2-utils (Debian/Ubuntu) or httpd-tools (RHEL)"
+    exit 1
+fi
+
+metric() {
+    curl -s "$BASE/actuator/metrics/$1?tag=$2" | grep -o '"value":[0-9.E]*' | head -n 1 | cut -d: -f2
+}
+
+echo "requests=$REQUESTS concurrency=$CONCURRENCY jar=$JAR" > "$RESULTS"
+
+run_mode() {
+    local mode=$1 cache_type=$2 l2=$3
+    local log="/tmp/$NAME-cache-$mode.log"
+
+    echo "--------------------------------------"
+    echo "Mode: $mode"
+    echo "--------------------------------------"
+
+    CACHE_TYPE=$cache_type HIBERNATE_L2_CACHE=$l2 java -jar "$JAR" --server.port=$PORT > "$log" 2>&1 &
+    local pid=$!
+    for i in $(seq 1 120); do
+        if curl -s "$BASE/actuator/health" 2>/dev/null | grep -q '"UP"'; then
+            break
+        fi
+        sleep 0.5
+    done
+    if ! curl -s "$BASE/actuator/health" 2>/dev/null | grep -q '"UP"'; then
+        echo "  ✗ not ready (see $log)"
+        kill $pid 2>/dev/null
+        wait $pid 2>/dev/null
+        return
+    fi
+
+    {
+        echo ""
+        echo "[$mode]"
+    } | tee -a "$RESULTS"
+    for endpoint in "${ENDPOINTS[@]}"; do
+        # Warm-up: JIT and, in cached modes, the cache
+        ab -q -n 2000 -c "$CONCURRENCY" "$BASE$endpoint" > /dev/null 2>&1
+        local out rps mean
+        out=$(ab -q -n "$REQUESTS" -c "$CONCURRENCY" "$BASE$endpoint" 2>/dev/null)
+        rps=$(echo "$out" | awk '/Requests per second/ {print $4}')
+        mean=$(echo "$out" | awk '/Time per request.*\(mean\)$/ {print $4}')
+        printf '%-45s %10s req/s  %8s ms mean\n' "$endpoint" "${rps:--}" "${mean:--}" | tee -a "$RESULTS"
+    done
+    {
+        echo "cache hits / misses:         $(metric cache.gets result:hit) / $(metric cache.gets result:miss)"
+        echo "L2 hits / misses:            $(metric hibernate.second.level.cache.requests result:hit) / $(metric hibernate.second.level.cache.requests result:miss)"
+    } | tee -a "$RESULTS"
+
+    kill $pid
+    wait $pid 2>/dev/null
+}
+
+run_mode none        none     false
+run_mode caffeine    caffeine false
+run_mode l2          none     true
+
+echo ""
+echo "======================================"
+echo "Results written to $RESULTS"
+echo "======================================"
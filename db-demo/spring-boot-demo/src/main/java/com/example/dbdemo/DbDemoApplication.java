@@ -2,8 +2,10 @@ package com.example.dbdemo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
+@EnableCaching
 public class DbDemoApplication {
     public static void main(String[] args) {
         SpringApplication.run(DbDemoApplication.class, args);
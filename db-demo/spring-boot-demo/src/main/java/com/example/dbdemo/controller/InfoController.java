@@ -1,6 +1,7 @@
 package com.example.dbdemo.controller;
 
 import com.example.dbdemo.config.AppConfig;
+import com.example.dbdemo.model.DatabaseType;
 import com.example.dbdemo.model.TechStack;
 import com.example.dbdemo.model.TechStackInfo;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +24,7 @@ public class InfoController {
         String springBootVersion = org.springframework.boot.SpringBootVersion.getVersion();
 
         // Auto-detect database type from JDBC URL
-        String databaseType = detectDatabaseType(datasourceUrl);
+        String databaseType = DatabaseType.fromJdbcUrl(datasourceUrl).getDisplayName();
 
         TechStack techStack = new TechStack(
             "Spring Boot",
@@ -41,16 +42,4 @@ public class InfoController {
             techStack
         );
     }
-
-    private String detectDatabaseType(String jdbcUrl) {
-        if (jdbcUrl == null) {
-            return "Unknown Database";
-        }
-        if (jdbcUrl.contains("mysql")) {
-            return "MySQL";
-        } else if (jdbcUrl.contains("postgresql")) {
-            return "PostgreSQL";
-        }
-        return "Unknown Database";
-    }
 }
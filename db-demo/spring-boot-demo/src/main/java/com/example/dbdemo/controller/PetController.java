@@ -1,21 +1,149 @@
 package com.example.dbdemo.controller;
 
-import com.example.dbdemo.model.Pet;
-import com.example.dbdemo.repository.PetRepository;
+import com.example.dbdemo.model.PetCursor;
+import com.example.dbdemo.model.PetImportResult;
+import com.example.dbdemo.model.PetPage;
+import com.example.dbdemo.model.PetQuery;
+import com.example.dbdemo.model.PetSort;
+import com.example.dbdemo.model.PetView;
+import com.example.dbdemo.service.PetExportService;
+import com.example.dbdemo.service.PetImportService;
+import com.example.dbdemo.service.PetService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 public class PetController {
 
+    private static final Logger log = LoggerFactory.getLogger(PetController.class);
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetImportService petImportService;
+
     @Autowired
-    private PetRepository petRepository;
+    private PetExportService petExportService;
 
+    /**
+     * One page of pets, optionally filtered by race, gender and age range.
+     * The next page is linked in the Link header (rel="next"); the description is
+     * only included with fields=description.
+     */
     @GetMapping("/api/pets")
-    public List<Pet> getAllPets() {
-        return petRepository.findAll();
+    public ResponseEntity<List<PetView>> getPets(
+            @RequestParam(required = false) String race,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "0") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields) {
+        PetQuery query = new PetQuery(
+            race,
+            gender,
+            minAge,
+            maxAge,
+            PetSort.valueOf(sort.toUpperCase(Locale.ROOT)),
+            "desc".equalsIgnoreCase(direction),
+            after != null ? PetCursor.decode(after) : null,
+            petService.pageSize(size),
+            fields != null && List.of(fields.split(",")).contains("description")
+        );
+        PetPage page = petService.findPage(query);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", page.next().encode())
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * A single pet including its description
+     */
+    @GetMapping("/api/pets/{id}")
+    public ResponseEntity<PetView> getPet(@PathVariable long id) {
+        return ResponseEntity.of(petService.findById(id));
+    }
+
+    /**
+     * All pets as NDJSON (format=ndjson, the default) or CSV (format=csv), streamed from a
+     * database cursor straight into the response as it is read
+     */
+    @GetMapping("/api/pets/export")
+    public void export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        String contentType = switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> "application/x-ndjson";
+            case "csv" -> "text/csv";
+            default -> throw new IllegalArgumentException("Unknown export format: " + format);
+        };
+        response.setContentType(contentType);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("pets." + format.toLowerCase(Locale.ROOT)).build().toString());
+        long count = "csv".equalsIgnoreCase(format)
+            ? petExportService.exportCsv(response.getOutputStream())
+            : petExportService.exportNdjson(response.getOutputStream());
+        log.debug("Exported {} pets as {}", count, format);
+    }
+
+    /**
+     * Bulk import from a CSV body (header line with the column names) read as it arrives
+     */
+    @PostMapping(path = "/api/pets/import", consumes = "text/csv")
+    public ResponseEntity<PetImportResult> importCsv(
+            InputStream body,
+            @RequestParam(defaultValue = "0") int batchSize) throws IOException {
+        return importResponse(petImportService.importCsv(body, batchSize));
+    }
+
+    /**
+     * Bulk import from an NDJSON body (one pet object per line) read as it arrives
+     */
+    @PostMapping(path = "/api/pets/import", consumes = "application/x-ndjson")
+    public ResponseEntity<PetImportResult> importNdjson(
+            InputStream body,
+            @RequestParam(defaultValue = "0") int batchSize) throws IOException {
+        return importResponse(petImportService.importNdjson(body, batchSize));
+    }
+
+    private static ResponseEntity<PetImportResult> importResponse(PetImportResult result) {
+        return ResponseEntity.status(result.completed() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(result);
+    }
+
+    /**
+     * Unknown sort keys, malformed cursors, invalid ranges and CSV bodies without a usable header are client errors
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
@@ -1,7 +1,10 @@
 package com.example.dbdemo.controller;
 
 import com.example.dbdemo.config.AppConfig;
-import com.example.dbdemo.repository.PetRepository;
+import com.example.dbdemo.model.DatabaseType;
+import com.example.dbdemo.model.PetPage;
+import com.example.dbdemo.model.PetQuery;
+import com.example.dbdemo.service.PetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
@@ -15,7 +18,7 @@ public class WebController {
     private AppConfig appConfig;
 
     @Autowired
-    private PetRepository petRepository;
+    private PetService petService;
 
     @Value("${spring.datasource.url}")
     private String datasourceUrl;
@@ -26,7 +29,7 @@ public class WebController {
         String springBootVersion = org.springframework.boot.SpringBootVersion.getVersion();
 
         // Auto-detect database type from JDBC URL
-        String databaseType = detectDatabaseType(datasourceUrl);
+        String databaseType = DatabaseType.fromJdbcUrl(datasourceUrl).getDisplayName();
 
         model.addAttribute("uuid", appConfig.getUuid());
         model.addAttribute("version", appConfig.getVersion());
@@ -37,20 +40,11 @@ public class WebController {
         model.addAttribute("languageVersion", javaVersion);
         model.addAttribute("runtime", "JVM");
         model.addAttribute("database", databaseType);
-        model.addAttribute("pets", petRepository.findAll());
+        // First page only; the rest is available through /api/pets
+        PetPage firstPage = petService.findPage(PetQuery.firstPage(petService.pageSize(0), true));
+        model.addAttribute("pets", firstPage.items());
+        model.addAttribute("morePets", firstPage.next() != null);
 
         return "index";
     }
-
-    private String detectDatabaseType(String jdbcUrl) {
-        if (jdbcUrl == null) {
-            return "Unknown Database";
-        }
-        if (jdbcUrl.contains("mysql")) {
-            return "MySQL";
-        } else if (jdbcUrl.contains("postgresql")) {
-            return "PostgreSQL";
-        }
-        return "Unknown Database";
-    }
 }
@@ -0,0 +1,32 @@
+package com.example.dbdemo.model;
+
+/**
+ * The database behind the JDBC URL, for display and for driver-specific behavior such as cursor fetching.
+ */
+public enum DatabaseType {
+    POSTGRESQL("PostgreSQL"),
+    MYSQL("MySQL"),
+    UNKNOWN("Unknown Database");
+
+    private final String displayName;
+
+    DatabaseType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static DatabaseType fromJdbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null) {
+            return UNKNOWN;
+        }
+        if (jdbcUrl.contains("mysql")) {
+            return MYSQL;
+        } else if (jdbcUrl.contains("postgresql")) {
+            return POSTGRESQL;
+        }
+        return UNKNOWN;
+    }
+}
@@ -1,9 +1,21 @@
 package com.example.dbdemo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+/**
+ * The indexes back the /api/pets filters and keyset sort orders (id is the tie-breaker);
+ * plain column indexes, so ddl-auto=update creates them on PostgreSQL and MySQL alike.
+ * Cacheable in the Hibernate second-level cache when that is switched on (HIBERNATE_L2_CACHE=true).
+ */
 @Entity
-@Table(name = "pets")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pet-entities")
+@Table(name = "pets", indexes = {
+    @Index(name = "idx_pets_race_gender_age", columnList = "race, gender, age, id"),
+    @Index(name = "idx_pets_name_id", columnList = "name, id"),
+    @Index(name = "idx_pets_age_id", columnList = "age, id")
+})
 public class Pet {
 
     @Id
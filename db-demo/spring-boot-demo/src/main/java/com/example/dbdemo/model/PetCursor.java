@@ -0,0 +1,45 @@
+package com.example.dbdemo.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a pet listing: the sort key, direction and values of the last row returned.
+ * Encoded as an opaque URL-safe token; a cursor only continues the ordering it was issued for.
+ */
+public record PetCursor(PetSort sort, boolean descending, long id, String value) {
+
+    public static PetCursor of(PetSort sort, boolean descending, PetView last) {
+        String value = switch (sort) {
+            case ID -> "";
+            case NAME -> last.name();
+            case AGE -> String.valueOf(last.age());
+        };
+        return new PetCursor(sort, descending, last.id(), value);
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + (descending ? "desc" : "asc") + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a cursor
+     */
+    public static PetCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new PetCursor(PetSort.valueOf(parts[0]), "desc".equals(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public Integer intValue() {
+        return Integer.valueOf(value);
+    }
+}
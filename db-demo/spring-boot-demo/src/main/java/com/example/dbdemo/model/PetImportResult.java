@@ -0,0 +1,21 @@
+package com.example.dbdemo.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: rows written and rejected, the first errors by input line, and throughput.
+ * completed is false when the import stopped early; the batches committed before that are kept.
+ */
+public record PetImportResult(
+    String format,
+    String method,
+    int batchSize,
+    long imported,
+    long rejected,
+    long batches,
+    long elapsedMs,
+    long rowsPerSecond,
+    boolean completed,
+    List<String> errors
+) {
+}
@@ -0,0 +1,9 @@
+package com.example.dbdemo.model;
+
+import java.util.List;
+
+/**
+ * One page of a pet listing and the cursor of the next page (null on the last page).
+ */
+public record PetPage(List<PetView> items, PetCursor next) {
+}
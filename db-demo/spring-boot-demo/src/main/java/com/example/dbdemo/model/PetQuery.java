@@ -0,0 +1,21 @@
+package com.example.dbdemo.model;
+
+/**
+ * Filters, sort order and page position of a pet query.
+ * All filters are optional; {@code after} is the cursor of the previous page's last row.
+ */
+public record PetQuery(
+    String race,
+    String gender,
+    Integer minAge,
+    Integer maxAge,
+    PetSort sort,
+    boolean descending,
+    PetCursor after,
+    int size,
+    boolean includeDescription
+) {
+    public static PetQuery firstPage(int size, boolean includeDescription) {
+        return new PetQuery(null, null, null, null, PetSort.ID, false, null, size, includeDescription);
+    }
+}
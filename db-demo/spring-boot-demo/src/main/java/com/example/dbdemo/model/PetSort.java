@@ -0,0 +1,20 @@
+package com.example.dbdemo.model;
+
+/**
+ * Sort keys of the pet query; ties are always broken by id so pages never overlap.
+ */
+public enum PetSort {
+    ID("id"),
+    NAME("name"),
+    AGE("age");
+
+    private final String attribute;
+
+    PetSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+}
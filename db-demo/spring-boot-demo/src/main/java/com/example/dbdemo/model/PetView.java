@@ -0,0 +1,21 @@
+package com.example.dbdemo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Projection of a pet as returned by /api/pets.
+ * The description (a TEXT column) is only selected when asked for and omitted from the JSON otherwise.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PetView(
+    Long id,
+    String race,
+    String gender,
+    String name,
+    Integer age,
+    String description
+) {
+    public PetView(Long id, String race, String gender, String name, Integer age) {
+        this(id, race, gender, name, age, null);
+    }
+}
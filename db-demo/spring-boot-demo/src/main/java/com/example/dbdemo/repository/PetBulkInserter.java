@@ -0,0 +1,128 @@
+package com.example.dbdemo.repository;
+
+import com.example.dbdemo.model.Pet;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Inserts batches of pets with plain JDBC, bypassing JPA.
+ *
+ * Pet uses IDENTITY keys, so Hibernate cannot batch its inserts. Here each batch is a
+ * single statement instead: COPY on PostgreSQL, a multi-row INSERT on MySQL, and a
+ * JDBC batch on anything else. The caller owns the connection and the transaction.
+ */
+@Repository
+public class PetBulkInserter {
+
+    private static final String COLUMNS = "race, gender, name, age, description";
+    private static final String COPY_SQL = "COPY pets (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL = "INSERT INTO pets (" + COLUMNS + ") VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?)";
+
+    public enum Method {
+        COPY, MULTI_ROW_INSERT, JDBC_BATCH
+    }
+
+    public Method method(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        if ("PostgreSQL".equals(product) && connection.isWrapperFor(PGConnection.class)) {
+            return Method.COPY;
+        }
+        if ("MySQL".equals(product) || "MariaDB".equals(product)) {
+            return Method.MULTI_ROW_INSERT;
+        }
+        return Method.JDBC_BATCH;
+    }
+
+    public void insert(Connection connection, Method method, List<Pet> pets) throws SQLException {
+        switch (method) {
+            case COPY -> copy(connection, pets);
+            case MULTI_ROW_INSERT -> multiRowInsert(connection, pets);
+            case JDBC_BATCH -> batchInsert(connection, pets);
+        }
+    }
+
+    /**
+     * COPY in CSV format: every text value is quoted, so an unquoted empty field is NULL
+     */
+    private void copy(Connection connection, List<Pet> pets) throws SQLException {
+        StringBuilder csv = new StringBuilder(pets.size() * 96);
+        for (Pet pet : pets) {
+            appendQuoted(csv, pet.getRace()).append(',');
+            appendQuoted(csv, pet.getGender()).append(',');
+            appendQuoted(csv, pet.getName()).append(',');
+            csv.append(pet.getAge()).append(',');
+            if (pet.getDescription() != null) {
+                appendQuoted(csv, pet.getDescription());
+            }
+            csv.append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("COPY failed", e);
+        }
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+
+    /**
+     * One INSERT ... VALUES (...), (...) per batch. Connector/J sends it as a single
+     * packet, so a batch must stay below max_allowed_packet and 65,535 parameters.
+     */
+    private void multiRowInsert(Connection connection, List<Pet> pets) throws SQLException {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + pets.size() * (ROW_PLACEHOLDERS.length() + 2))
+            .append(INSERT_SQL);
+        for (int i = 0; i < pets.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Pet pet : pets) {
+                index = bind(statement, index, pet);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private void batchInsert(Connection connection, List<Pet> pets) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL + ROW_PLACEHOLDERS)) {
+            for (Pet pet : pets) {
+                bind(statement, 1, pet);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static int bind(PreparedStatement statement, int index, Pet pet) throws SQLException {
+        statement.setString(index++, pet.getRace());
+        statement.setString(index++, pet.getGender());
+        statement.setString(index++, pet.getName());
+        statement.setInt(index++, pet.getAge());
+        if (pet.getDescription() != null) {
+            statement.setString(index++, pet.getDescription());
+        } else {
+            statement.setNull(index++, Types.VARCHAR);
+        }
+        return index;
+    }
+}
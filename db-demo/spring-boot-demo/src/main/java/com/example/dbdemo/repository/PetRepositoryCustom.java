@@ -0,0 +1,22 @@
+package com.example.dbdemo.repository;
+
+import com.example.dbdemo.model.PetQuery;
+import com.example.dbdemo.model.PetView;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface PetRepositoryCustom {
+
+    /**
+     * One page of pets matching the query, selecting only the projected columns.
+     * Returns up to {@code limit} rows after the query's cursor.
+     */
+    List<PetView> findPage(PetQuery query, int limit);
+
+    /**
+     * All pets in id order with their description, read as the stream is consumed with the
+     * given JDBC fetch size. Must be consumed inside a transaction and closed.
+     */
+    Stream<PetView> streamAll(int fetchSize);
+}
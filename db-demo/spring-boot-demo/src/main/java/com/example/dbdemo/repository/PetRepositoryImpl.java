@@ -0,0 +1,122 @@
+package com.example.dbdemo.repository;
+
+import com.example.dbdemo.model.Pet;
+import com.example.dbdemo.model.PetCursor;
+import com.example.dbdemo.model.PetQuery;
+import com.example.dbdemo.model.PetSort;
+import com.example.dbdemo.model.PetView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pagination with the Criteria API.
+ *
+ * Instead of OFFSET (which reads and discards every skipped row), each page starts
+ * after the last row of the previous one: {@code (key, id) > (lastKey, lastId)} in
+ * sort order. With the indexes declared on {@link Pet} this is an index range scan
+ * of {@code limit} rows on PostgreSQL and MySQL alike, however deep the page.
+ */
+public class PetRepositoryImpl implements PetRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PetView> findPage(PetQuery query, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PetView> criteria = cb.createQuery(PetView.class);
+        Root<Pet> pet = criteria.from(Pet.class);
+
+        if (query.includeDescription()) {
+            criteria.select(cb.construct(PetView.class, pet.get("id"), pet.get("race"), pet.get("gender"),
+                pet.get("name"), pet.get("age"), pet.get("description")));
+        } else {
+            criteria.select(cb.construct(PetView.class, pet.get("id"), pet.get("race"), pet.get("gender"),
+                pet.get("name"), pet.get("age")));
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.race() != null) {
+            predicates.add(cb.equal(pet.get("race"), query.race()));
+        }
+        if (query.gender() != null) {
+            predicates.add(cb.equal(pet.get("gender"), query.gender()));
+        }
+        if (query.minAge() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(pet.<Integer>get("age"), query.minAge()));
+        }
+        if (query.maxAge() != null) {
+            predicates.add(cb.lessThanOrEqualTo(pet.<Integer>get("age"), query.maxAge()));
+        }
+        if (query.after() != null) {
+            predicates.add(after(cb, pet, query.sort(), query.descending(), query.after()));
+        }
+        criteria.where(predicates.toArray(new Predicate[0]));
+
+        Path<Long> id = pet.get("id");
+        if (query.sort() == PetSort.ID) {
+            criteria.orderBy(query.descending() ? cb.desc(id) : cb.asc(id));
+        } else {
+            Path<Object> key = pet.get(query.sort().getAttribute());
+            criteria.orderBy(
+                query.descending() ? cb.desc(key) : cb.asc(key),
+                query.descending() ? cb.desc(id) : cb.asc(id));
+        }
+
+        return entityManager.createQuery(criteria)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    /**
+     * A constructor projection, so rows are never managed entities: the persistence context
+     * stays empty however many rows pass through, and the second-level cache is not involved.
+     */
+    @Override
+    public Stream<PetView> streamAll(int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PetView> criteria = cb.createQuery(PetView.class);
+        Root<Pet> pet = criteria.from(Pet.class);
+        criteria.select(cb.construct(PetView.class, pet.get("id"), pet.get("race"), pet.get("gender"),
+            pet.get("name"), pet.get("age"), pet.get("description")));
+        criteria.orderBy(cb.asc(pet.get("id")));
+
+        return entityManager.createQuery(criteria)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+
+    /**
+     * Rows strictly after the cursor in sort order, written as
+     * {@code key > k OR (key = k AND id > i)} since row-value comparison is not portable in JPQL
+     */
+    private Predicate after(CriteriaBuilder cb, Root<Pet> pet, PetSort sort, boolean descending, PetCursor cursor) {
+        if (cursor.sort() != sort || cursor.descending() != descending) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        Path<Long> id = pet.get("id");
+        Predicate idAfter = descending ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+        return switch (sort) {
+            case ID -> idAfter;
+            case NAME -> keyAfter(cb, pet.<String>get("name"), cursor.value(), descending, idAfter);
+            case AGE -> keyAfter(cb, pet.<Integer>get("age"), cursor.intValue(), descending, idAfter);
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate keyAfter(
+            CriteriaBuilder cb, Expression<T> key, T value, boolean descending, Predicate idAfter) {
+        Predicate beyond = descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+        return cb.or(beyond, cb.and(cb.equal(key, value), idAfter));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV (RFC 4180) pet rows: comma separated, optionally quoted with "" as an escaped quote,
+ * LF or CRLF line ends. The header line names the columns in any order; race, gender, name
+ * and age are required, description is optional and other columns (such as id) are ignored.
+ */
+final class PetCsvReader implements PetRowReader {
+
+    private static final List<String> REQUIRED = List.of("race", "gender", "name", "age");
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private boolean unterminated;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    PetCsvReader(Reader in) throws IOException {
+        this.in = in;
+        List<String> header = readRecord();
+        if (header == null) {
+            return;
+        }
+        if (header.getFirst().startsWith("\uFEFF")) {
+            header.set(0, header.getFirst().substring(1));
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED)) {
+            throw new IllegalArgumentException(
+                "CSV header must name the columns race, gender, name and age (description is optional)");
+        }
+    }
+
+    @Override
+    public Row next() throws IOException {
+        while (true) {
+            long start = line;
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (unterminated) {
+                return Row.invalid(start, "unterminated quoted field");
+            }
+            if (fields.size() == 1 && fields.getFirst().isEmpty()) {
+                continue;
+            }
+            String age = field(fields, "age");
+            Integer parsedAge;
+            try {
+                parsedAge = age != null ? Integer.valueOf(age.trim()) : null;
+            } catch (NumberFormatException e) {
+                return Row.invalid(start, "age is not a number: " + age);
+            }
+            return Row.of(start, new Pet(field(fields, "race"), field(fields, "gender"), field(fields, "name"),
+                parsedAge, field(fields, "description")));
+        }
+    }
+
+    /**
+     * The value of a column, null when the row is too short or the field is empty
+     */
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * The fields of the next record, or null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    unterminated = true;
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.DatabaseType;
+import com.example.dbdemo.model.PetView;
+import com.example.dbdemo.repository.PetRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export of all pets as NDJSON or CSV, written to the output stream row by row.
+ *
+ * Rows come from a server-side cursor and are written through fixed-size buffers, so heap
+ * use does not depend on the table size. PostgreSQL only uses a cursor for a positive fetch
+ * size inside a transaction, hence the read-only transaction around the export. MySQL
+ * Connector/J reads the whole result into memory unless the fetch size is Integer.MIN_VALUE
+ * (row-by-row streaming) or the URL sets useCursorFetch=true (then the configured fetch size
+ * is used for a cursor). The transaction, and its snapshot, stays open until the last row is written.
+ */
+@Service
+public class PetExportService {
+
+    private static final String CSV_HEADER = "id,race,gender,name,age,description\n";
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${app.pets.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * One JSON object per line, in the same shape as /api/pets; returns the number of pets written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        // No flush per row: the generator writes to the stream as its buffer fills
+        ObjectWriter petWriter = objectMapper.writerFor(PetView.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<PetView> pets = streamAll();
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            for (Iterator<PetView> it = pets.iterator(); it.hasNext(); count++) {
+                petWriter.writeValue(json, it.next());
+                json.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+
+    /**
+     * CSV with a header line, readable by the CSV import; returns the number of pets written
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        csv.write(CSV_HEADER);
+        long count = 0;
+        try (Stream<PetView> pets = streamAll()) {
+            for (Iterator<PetView> it = pets.iterator(); it.hasNext(); count++) {
+                PetView pet = it.next();
+                csv.write(Long.toString(pet.id()));
+                csv.write(',');
+                writeField(csv, pet.race());
+                csv.write(',');
+                writeField(csv, pet.gender());
+                csv.write(',');
+                writeField(csv, pet.name());
+                csv.write(',');
+                csv.write(Integer.toString(pet.age()));
+                csv.write(',');
+                writeField(csv, pet.description());
+                csv.write('\n');
+            }
+        }
+        csv.flush();
+        return count;
+    }
+
+    private Stream<PetView> streamAll() {
+        boolean mysqlStreaming = DatabaseType.fromJdbcUrl(datasourceUrl) == DatabaseType.MYSQL
+            && !datasourceUrl.contains("useCursorFetch=true");
+        return petRepository.streamAll(mysqlStreaming ? Integer.MIN_VALUE : fetchSize);
+    }
+
+    /**
+     * Quoted only when needed (RFC 4180); null is an empty field
+     */
+    private static void writeField(Writer csv, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
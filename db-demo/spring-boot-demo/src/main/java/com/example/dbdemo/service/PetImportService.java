@@ -0,0 +1,204 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+import com.example.dbdemo.model.PetImportResult;
+import com.example.dbdemo.repository.PetBulkInserter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk import of pets from CSV or NDJSON.
+ *
+ * The body is parsed one row at a time and written in batches of app.pets.import.batch-size
+ * rows, so memory use is bounded by the batch and not by the input. Each batch borrows a
+ * pooled connection for its own transaction only: a slow upload does not hold a connection
+ * while the next batch is read. Rows that fail validation are skipped and reported
+ * by input line. When the database rejects a batch, it is rolled back and retried row by row
+ * to keep the good rows; the import stops once more than app.pets.import.max-errors rows have
+ * been rejected by the database, or when the connection is lost.
+ */
+@Service
+public class PetImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PetImportService.class);
+    private static final int VALID_TIMEOUT_SECONDS = 5;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PetBulkInserter petBulkInserter;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.pets.import.batch-size:5000}")
+    private int defaultBatchSize;
+
+    @Value("${app.pets.import.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${app.pets.import.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * Batch size to use for a requested size (0 or less means the default)
+     */
+    public int batchSize(int requested) {
+        return requested <= 0 ? defaultBatchSize : Math.min(requested, maxBatchSize);
+    }
+
+    public PetImportResult importCsv(InputStream body, int batchSize) throws IOException {
+        return importRows("csv", new PetCsvReader(reader(body)), batchSize(batchSize));
+    }
+
+    public PetImportResult importNdjson(InputStream body, int batchSize) throws IOException {
+        return importRows("ndjson", new PetNdjsonReader(reader(body), objectMapper), batchSize(batchSize));
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 65536);
+    }
+
+    private PetImportResult importRows(String format, PetRowReader reader, int batchSize) throws IOException {
+        Progress progress = new Progress();
+        PetBulkInserter.Method method = null;
+        boolean completed = false;
+        long start = System.nanoTime();
+        try {
+            try (Connection connection = dataSource.getConnection()) {
+                method = petBulkInserter.method(connection);
+            }
+            List<PetRowReader.Row> batch = new ArrayList<>(batchSize);
+            PetRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                String error = row.error() != null ? row.error() : validate(row.pet());
+                if (error != null) {
+                    progress.reject(row.line(), error);
+                } else {
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        flush(method, batch, progress);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(method, batch, progress);
+            }
+            completed = true;
+        } catch (SQLException e) {
+            progress.errors.add("import stopped: " + e.getMessage());
+        } finally {
+            // JDBC writes bypass the JPA caches; new rows only, so the Hibernate L2 cache stays valid
+            if (progress.imported > 0) {
+                petService.evictAll();
+            }
+        }
+
+        long elapsedMs = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        long rowsPerSecond = progress.imported * 1000 / elapsedMs;
+        log.info("Imported {} pets from {} in {} ms ({} rows/s, {} rejected)",
+            progress.imported, format, elapsedMs, rowsPerSecond, progress.rejected);
+        return new PetImportResult(format, method != null ? method.name() : null, batchSize, progress.imported,
+            progress.rejected, progress.batches, elapsedMs, rowsPerSecond, completed, List.copyOf(progress.errors));
+    }
+
+    private void flush(PetBulkInserter.Method method, List<PetRowReader.Row> batch,
+                       Progress progress) throws SQLException {
+        progress.batches++;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                petBulkInserter.insert(connection, method, batch.stream().map(PetRowReader.Row::pet).toList());
+                connection.commit();
+                progress.imported += batch.size();
+                return;
+            } catch (SQLException e) {
+                connection.rollback();
+                if (batch.size() == 1) {
+                    databaseReject(batch.getFirst(), e, progress);
+                    return;
+                }
+                if (!connection.isValid(VALID_TIMEOUT_SECONDS)) {
+                    throw e;
+                }
+            }
+            // Find the rows the database rejected, keeping the rest of the batch
+            for (PetRowReader.Row row : batch) {
+                try {
+                    petBulkInserter.insert(connection, method, List.of(row.pet()));
+                    connection.commit();
+                    progress.imported++;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    databaseReject(row, e, progress);
+                }
+            }
+        }
+    }
+
+    private void databaseReject(PetRowReader.Row row, SQLException e, Progress progress) throws SQLException {
+        progress.reject(row.line(), e.getMessage());
+        if (++progress.databaseRejected > maxErrors) {
+            throw new SQLException("more than " + maxErrors + " rows rejected by the database", e);
+        }
+    }
+
+    /**
+     * The reason a pet cannot be stored, or null; mirrors the column constraints of Pet
+     */
+    private static String validate(Pet pet) {
+        if (isMissing(pet.getRace()) || pet.getRace().length() > 50) {
+            return "race is required (at most 50 characters)";
+        }
+        if (isMissing(pet.getGender()) || pet.getGender().length() > 10) {
+            return "gender is required (at most 10 characters)";
+        }
+        if (isMissing(pet.getName()) || pet.getName().length() > 50) {
+            return "name is required (at most 50 characters)";
+        }
+        if (pet.getAge() == null || pet.getAge() < 0) {
+            return "age is required and must not be negative";
+        }
+        return null;
+    }
+
+    private static boolean isMissing(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private final class Progress {
+
+        long imported;
+        long rejected;
+        long databaseRejected;
+        long batches;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add("line " + line + ": " + message);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * NDJSON pet rows: one JSON object per line with race, gender, name, age and an optional
+ * description. Blank lines are skipped; other properties (such as id) are ignored.
+ * Lines holding anything but an object (null, arrays, numbers) are rejected.
+ */
+final class PetNdjsonReader implements PetRowReader {
+
+    private final BufferedReader in;
+    private final ObjectReader petReader;
+    private long line;
+
+    PetNdjsonReader(BufferedReader in, ObjectMapper objectMapper) {
+        this.in = in;
+        this.petReader = objectMapper.readerFor(Pet.class);
+    }
+
+    @Override
+    public Row next() throws IOException {
+        String text;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (text.charAt(firstNonBlank(text)) != '{') {
+                return Row.invalid(line, "not a JSON object");
+            }
+            try {
+                return Row.of(line, petReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                return Row.invalid(line, "invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private static int firstNonBlank(String text) {
+        int i = 0;
+        while (Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
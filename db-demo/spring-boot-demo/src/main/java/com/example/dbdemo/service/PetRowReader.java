@@ -0,0 +1,30 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+
+import java.io.IOException;
+
+/**
+ * Reads pets one row at a time from an import body, without buffering the whole input.
+ */
+interface PetRowReader {
+
+    /**
+     * The next row, or null at the end of the input
+     */
+    Row next() throws IOException;
+
+    /**
+     * A parsed pet, or the reason the row at that input line could not be parsed
+     */
+    record Row(long line, Pet pet, String error) {
+
+        static Row of(long line, Pet pet) {
+            return new Row(line, pet, null);
+        }
+
+        static Row invalid(long line, String error) {
+            return new Row(line, null, error);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+import com.example.dbdemo.model.PetCursor;
+import com.example.dbdemo.model.PetPage;
+import com.example.dbdemo.model.PetQuery;
+import com.example.dbdemo.model.PetView;
+import com.example.dbdemo.repository.PetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pet reads and writes.
+ *
+ * Lookups and list pages are cached in the "pets" and "petPages" caches (Caffeine,
+ * bounded by size and TTL, see spring.cache.caffeine.spec; spring.cache.type=none
+ * turns caching off). Writes go through this service and clear both caches once
+ * the repository transaction has committed. A page read concurrently with a write
+ * can still be cached from the old state; the TTL bounds how long that lasts.
+ */
+@Service
+public class PetService {
+
+    public static final String PETS_CACHE = "pets";
+    public static final String PAGES_CACHE = "petPages";
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Value("${app.pets.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pets.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Page size to use for a requested size (0 or less means the default)
+     */
+    public int pageSize(int requested) {
+        return requested <= 0 ? defaultPageSize : Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * Reads one row past the page to know whether a next page exists, without a COUNT query
+     */
+    @Cacheable(PAGES_CACHE)
+    @Transactional(readOnly = true)
+    public PetPage findPage(PetQuery query) {
+        if (query.minAge() != null && query.maxAge() != null && query.minAge() > query.maxAge()) {
+            throw new IllegalArgumentException("minAge must not be greater than maxAge");
+        }
+        List<PetView> rows = petRepository.findPage(query, query.size() + 1);
+        if (rows.size() <= query.size()) {
+            return new PetPage(List.copyOf(rows), null);
+        }
+        List<PetView> items = List.copyOf(rows.subList(0, query.size()));
+        return new PetPage(items, PetCursor.of(query.sort(), query.descending(), items.getLast()));
+    }
+
+    @Cacheable(PETS_CACHE)
+    @Transactional(readOnly = true)
+    public Optional<PetView> findById(long id) {
+        return petRepository.findById(id)
+            .map(pet -> new PetView(pet.getId(), pet.getRace(), pet.getGender(), pet.getName(), pet.getAge(),
+                pet.getDescription()));
+    }
+
+    /**
+     * Not transactional itself: the caches are cleared after saveAll has committed
+     */
+    @CacheEvict(cacheNames = {PETS_CACHE, PAGES_CACHE}, allEntries = true)
+    public List<Pet> saveAll(List<Pet> pets) {
+        return petRepository.saveAll(pets);
+    }
+
+    /**
+     * Clears both caches after writes that bypass JPA, such as the bulk import
+     */
+    @CacheEvict(cacheNames = {PETS_CACHE, PAGES_CACHE}, allEntries = true)
+    public void evictAll() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.dbdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PetCursorTest {
+
+    private static final PetView LAST = new PetView(42L, "Labrador", "Male", "Max: the 2nd", 7);
+
+    @Test
+    void roundTripsEverySortKey() {
+        for (PetSort sort : PetSort.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                PetCursor cursor = PetCursor.of(sort, descending, LAST);
+
+                assertThat(PetCursor.decode(cursor.encode())).isEqualTo(cursor);
+            }
+        }
+    }
+
+    @Test
+    void keepsTheSortValueOfTheLastRow() {
+        assertThat(PetCursor.of(PetSort.ID, false, LAST).value()).isEmpty();
+        assertThat(PetCursor.of(PetSort.NAME, false, LAST).value()).isEqualTo("Max: the 2nd");
+        assertThat(PetCursor.of(PetSort.AGE, true, LAST).intValue()).isEqualTo(7);
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        String token = PetCursor.of(PetSort.NAME, true, LAST).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsTokensThatAreNotCursors() {
+        assertThatThrownBy(() -> PetCursor.decode(token("ID:asc:1")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PetCursor.decode(token("COLOR:asc:1:")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PetCursor.decode(token("ID:asc:one:")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PetCursor.decode("not base64!"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.dbdemo.service;
+
+import com.example.dbdemo.model.Pet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PetCsvReaderTest {
+
+    @Test
+    void readsRowsInHeaderOrder() throws IOException {
+        List<PetRowReader.Row> rows = read("""
+            name,age,race,gender,id
+            Max,3,Labrador,Male,17
+            Luna,5,Persian Cat,Female,18
+            """);
+
+        assertThat(rows).hasSize(2);
+        assertPet(rows.get(0), 2, "Labrador", "Male", "Max", 3, null);
+        assertPet(rows.get(1), 3, "Persian Cat", "Female", "Luna", 5, null);
+    }
+
+    @Test
+    void unquotesFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        List<PetRowReader.Row> rows = read("race,gender,name,age,description\r\n"
+            + "Labrador,Male,Max,3,\"Loves \"\"fetch\"\", naps\"\r\n"
+            + "Bengal Cat,Female,Daisy,2,\"first line\nsecond line\"\r\n"
+            + "Beagle,Male,Rocky,4,\r\n");
+
+        assertThat(rows).hasSize(3);
+        assertPet(rows.get(0), 2, "Labrador", "Male", "Max", 3, "Loves \"fetch\", naps");
+        assertPet(rows.get(1), 3, "Bengal Cat", "Female", "Daisy", 2, "first line\nsecond line");
+        // The quoted line break counts, so the next record starts two lines further down
+        assertPet(rows.get(2), 5, "Beagle", "Male", "Rocky", 4, null);
+    }
+
+    @Test
+    void skipsBlankLinesAndByteOrderMark() throws IOException {
+        List<PetRowReader.Row> rows = read("\uFEFFrace,gender,name,age\n\nLabrador,Male,Max,3\n\n");
+
+        assertThat(rows).hasSize(1);
+        assertPet(rows.getFirst(), 3, "Labrador", "Male", "Max", 3, null);
+    }
+
+    @Test
+    void reportsInvalidRowsByLine() throws IOException {
+        List<PetRowReader.Row> rows = read("""
+            race,gender,name,age
+            Labrador,Male,Max,three
+            Labrador,Male,Rocky
+            Labrador,Male,"Luna,4
+            """);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).line()).isEqualTo(2);
+        assertThat(rows.get(0).error()).contains("age is not a number");
+        // A short row parses; the missing age is left to validation
+        assertThat(rows.get(1).error()).isNull();
+        assertThat(rows.get(1).pet().getAge()).isNull();
+        assertThat(rows.get(2).line()).isEqualTo(4);
+        assertThat(rows.get(2).error()).isEqualTo("unterminated quoted field");
+    }
+
+    @Test
+    void rejectsHeaderWithoutRequiredColumns() {
+        assertThatThrownBy(() -> read("race,gender,name\nLabrador,Male,Max\n"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyInputHasNoRows() throws IOException {
+        assertThat(read("")).isEmpty();
+    }
+
+    private static List<PetRowReader.Row> read(String csv) throws IOException {
+        PetCsvReader reader = new PetCsvReader(new StringReader(csv));
+        List<PetRowReader.Row> rows = new ArrayList<>();
+        PetRowReader.Row row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void assertPet(PetRowReader.Row row, long line, String race, String gender, String name,
+                                  Integer age, String description) {
+        assertThat(row.error()).isNull();
+        assertThat(row.line()).isEqualTo(line);
+        Pet pet = row.pet();
+        assertThat(pet.getRace()).isEqualTo(race);
+        assertThat(pet.getGender()).isEqualTo(gender);
+        assertThat(pet.getName()).isEqualTo(name);
+        assertThat(pet.getAge()).isEqualTo(age);
+        assertThat(pet.getDescription()).isEqualTo(description);
+    }
+}